@@ -21,8 +21,6 @@ package de.difuture.uds.odm2fhir.fhir.mapper;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
-import lombok.Getter;
-
 import org.hl7.fhir.r4.model.DomainResource;
 
 import java.util.List;
@@ -37,19 +35,15 @@ import static java.util.function.Predicate.not;
 
 public abstract class Form {
 
-  @Getter
-  private StudyEvent studyEvent;
-
   protected abstract String getOID();
 
   protected abstract List<Item> getItems();
 
-  protected Stream<DomainResource> map(StudyEvent studyEvent, FormData formData) {
-    this.studyEvent = studyEvent;
-
-    return !formData.getFormOID().endsWith(getOID()) || !isComplete(formData) ? Stream.empty() :
+  // Only offered the form data of its OID by the study event
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
+    return !isComplete(formData) ? Stream.empty() :
         getItems().stream()
-            .flatMap(item -> item.map(this, formData))
+            .flatMap(item -> item.map(mappingContext, formData))
             .filter(not(DomainResource::isEmpty));
   }
 
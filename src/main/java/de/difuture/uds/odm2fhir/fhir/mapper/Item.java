@@ -22,10 +22,10 @@ import de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem;
 import de.difuture.uds.odm2fhir.fhir.util.CommonStructureDefinition;
 import de.difuture.uds.odm2fhir.fhir.util.NUMCodeSystem;
 import de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition;
+import de.difuture.uds.odm2fhir.fhir.util.TerminologyRegistry.Constant;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hl7.fhir.r4.model.Age;
@@ -38,10 +38,8 @@ import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Meta;
-import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Quantity;
 import org.hl7.fhir.r4.model.Quantity.QuantityComparator;
-import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.codesystems.AdministrativeGender;
 import org.hl7.fhir.r4.model.codesystems.ConditionClinical;
@@ -56,11 +54,13 @@ import org.hl7.fhir.r4.model.codesystems.ObservationCategory;
 import org.hl7.fhir.r4.model.codesystems.ResourceTypes;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -80,12 +80,16 @@ import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.UCUM;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.UNII;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonStructureDefinition.DATA_ABSENT_REASON;
 import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.getIdentifierSystem;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.hash;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMCodeSystem.ECRF_PARAMETER_CODES;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMCodeSystem.FRAILTY_SCORE;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.UNCERTAINTY_OF_PRESENCE;
+import static de.difuture.uds.odm2fhir.fhir.util.TerminologyRegistry.createConstant;
+import static de.difuture.uds.odm2fhir.fhir.util.TerminologyRegistry.getCodeableConcept;
+import static de.difuture.uds.odm2fhir.odm.util.CodeLists.forEachCode;
 import static de.difuture.uds.odm2fhir.util.EnvironmentProvider.ENVIRONMENT;
 
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.apache.commons.lang3.StringUtils.contains;
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.split;
@@ -96,9 +100,6 @@ import static org.hl7.fhir.r4.model.codesystems.DataTypes.DATETIME;
 import static org.hl7.fhir.r4.model.codesystems.DataTypes.QUANTITY;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CODESYSTEM;
 
-import static org.springframework.util.ReflectionUtils.findMethod;
-import static org.springframework.util.ReflectionUtils.invokeMethod;
-
 import static java.lang.String.format;
 import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.toList;
@@ -106,47 +107,46 @@ import static java.util.stream.Collectors.toList;
 @Slf4j
 public abstract class Item {
 
-  @Getter
-  private Form form;
-
-  public Stream<DomainResource> map(Form form, FormData formData) {
-    this.form = form;
-    return map(formData);
-  }
-
-  protected abstract Stream<DomainResource> map(FormData formData);
-
-  // NOTE Always use a copy of those constants when adding codings!!!
-  protected final CodeableConcept ACTIVE = createCodeableConcept(ConditionClinical.ACTIVE);
-  protected final CodeableConcept ADR = createCodeableConcept(ConsentScope.ADR);
-  protected final CodeableConcept CONFIRMED = createCodeableConcept(ConditionVerStatus.CONFIRMED).copy()
-      .addCoding(createCoding(SNOMED_CT, "410605003", "Confirmed present (qualifier value)"));
-  protected final CodeableConcept UNCONFIRMED = createCodeableConcept(ConditionVerStatus.UNCONFIRMED);
-  protected final CodeableConcept DNR = createCodeableConcept(ConsentCategory.DNR);
-  protected final CodeableConcept LABORATORY = createCodeableConcept(ObservationCategory.LABORATORY);
-  protected final CodeableConcept REFUTED = createCodeableConcept(ConditionVerStatus.REFUTED).copy()
-      .addCoding(createCoding(SNOMED_CT, "410594000", "Definitely NOT present (qualifier value)"));
-  protected final CodeableConcept RESEARCH = createCodeableConcept(ConsentScope.RESEARCH);
-  protected final CodeableConcept SOCIAL_HISTORY = createCodeableConcept(ObservationCategory.SOCIALHISTORY);
-  protected final CodeableConcept SURVEY = createCodeableConcept(ObservationCategory.SURVEY);
-  protected final CodeableConcept UNKNOWN = createCodeableConcept(DataAbsentReason.UNKNOWN);
-  protected final CodeableConcept VITAL_SIGNS = createCodeableConcept(ObservationCategory.VITALSIGNS);
-  protected final CodeableConcept OBI = createCodeableConcept(
-      createCoding(IDENTIFIER_TYPE_CODES, "OBI", "Observation Instance Identifier"));
-
-  protected final Extension DATA_PRESENCE_UNKNOWN = createExtension(UNCERTAINTY_OF_PRESENCE,
-      createCoding(SNOMED_CT, "261665006", "Unknown (qualifier value)"), "Presence unknown.");
-  protected final Extension DATA_ABSENT_FOR_UNKNOWN_REASON = createExtension(
-      createCoding(DATA_ABSENT_REASON.getUrl(), DataAbsentReason.UNKNOWN.toCode(), DataAbsentReason.UNKNOWN.getDisplay()));
-  protected final Extension DATA_ABSENT_BECAUSE_NOT_PERFORMED = createExtension(
-      createCoding(DATA_ABSENT_REASON.getUrl(), DataAbsentReason.NOTPERFORMED.toCode(), DataAbsentReason.NOTPERFORMED.getDisplay()));
-
-  protected final DateType UNKNOWN_DATE = (DateType) new DateType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON);
-  protected final DateTimeType UNKNOWN_DATE_TIME = (DateTimeType) new DateTimeType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON);
-  protected final DateTimeType NOT_PERFORMED_DATE_TIME = (DateTimeType) new DateTimeType().addExtension(DATA_ABSENT_BECAUSE_NOT_PERFORMED);
+  protected abstract Stream<DomainResource> map(MappingContext mappingContext, FormData formData);
+
+  // Shared by all items - only handing out copies to be added to resources
+  protected static final Constant<CodeableConcept> ACTIVE = createConstant(getCodeableConcept(ConditionClinical.ACTIVE));
+  protected static final Constant<CodeableConcept> ADR = createConstant(getCodeableConcept(ConsentScope.ADR));
+  protected static final Constant<CodeableConcept> CONFIRMED = createConstant(getCodeableConcept(ConditionVerStatus.CONFIRMED)
+      .addCoding(new Coding(SNOMED_CT.getUrl(), "410605003", "Confirmed present (qualifier value)")));
+  protected static final Constant<CodeableConcept> UNCONFIRMED = createConstant(getCodeableConcept(ConditionVerStatus.UNCONFIRMED));
+  protected static final Constant<CodeableConcept> DNR = createConstant(getCodeableConcept(ConsentCategory.DNR));
+  protected static final Constant<CodeableConcept> LABORATORY = createConstant(getCodeableConcept(ObservationCategory.LABORATORY));
+  protected static final Constant<CodeableConcept> REFUTED = createConstant(getCodeableConcept(ConditionVerStatus.REFUTED)
+      .addCoding(new Coding(SNOMED_CT.getUrl(), "410594000", "Definitely NOT present (qualifier value)")));
+  protected static final Constant<CodeableConcept> RESEARCH = createConstant(getCodeableConcept(ConsentScope.RESEARCH));
+  protected static final Constant<CodeableConcept> SOCIAL_HISTORY = createConstant(getCodeableConcept(ObservationCategory.SOCIALHISTORY));
+  protected static final Constant<CodeableConcept> SURVEY = createConstant(getCodeableConcept(ObservationCategory.SURVEY));
+  protected static final Constant<CodeableConcept> UNKNOWN = createConstant(getCodeableConcept(DataAbsentReason.UNKNOWN));
+  protected static final Constant<CodeableConcept> VITAL_SIGNS = createConstant(getCodeableConcept(ObservationCategory.VITALSIGNS));
+  protected static final Constant<CodeableConcept> OBI = createConstant(new CodeableConcept(
+      new Coding(IDENTIFIER_TYPE_CODES.getUrl(), "OBI", "Observation Instance Identifier")));
+
+  protected static final Constant<Extension> DATA_PRESENCE_UNKNOWN = createConstant(new Extension(UNCERTAINTY_OF_PRESENCE.getUrl())
+      .setValue(new CodeableConcept(new Coding(SNOMED_CT.getUrl(), "261665006", "Unknown (qualifier value)")).setText("Presence unknown.")));
+  protected static final Constant<Extension> DATA_ABSENT_FOR_UNKNOWN_REASON = createConstant(new Extension(DATA_ABSENT_REASON.getUrl())
+      .setValue(new CodeType(DataAbsentReason.UNKNOWN.toCode())));
+  protected static final Constant<Extension> DATA_ABSENT_BECAUSE_NOT_PERFORMED = createConstant(new Extension(DATA_ABSENT_REASON.getUrl())
+      .setValue(new CodeType(DataAbsentReason.NOTPERFORMED.toCode())));
+
+  protected static final Constant<DateType> UNKNOWN_DATE = createConstant(
+      (DateType) new DateType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON.copy()));
+  protected static final Constant<DateTimeType> UNKNOWN_DATE_TIME = createConstant(
+      (DateTimeType) new DateTimeType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON.copy()));
+  protected static final Constant<DateTimeType> NOT_PERFORMED_DATE_TIME = createConstant(
+      (DateTimeType) new DateTimeType().addExtension(DATA_ABSENT_BECAUSE_NOT_PERFORMED.copy()));
 
   private static final Map<String, String> CODE_SYSTEMS, LAB_UNITS;
 
+  // Raw coding values stem from the finite vocabulary of the code lists and are thus parsed only once
+  private static final CodingTemplates CODING_TEMPLATES = new CodingTemplates(Item::parseCoding);
+  private static final CodingTemplates LAB_CODING_TEMPLATES = new CodingTemplates(Item::parseLabCoding);
+
   protected static final String HL7_OID = "2.16.840.1.113883";
   protected static final String DE_HC_OID = "1.2.276.0.76.5";
 
@@ -236,12 +236,9 @@ public abstract class Item {
     LAB_UNITS.put("sarsco_v2_covid19_ab_ia_qn_1", "[IU]/mL");
   }
 
-  protected final Patient getPatient() {
-    return getForm().getStudyEvent().getSubject().getPatient();
-  }
-
-  protected final Reference getOrganizationReference() {
-    return getForm().getStudyEvent().getSubject().getOrganizationReference();
+  // Called once the code lists are set (see CodeLists) to parse the templates of all their codes up front
+  public static void parseCodingTemplates() {
+    forEachCode((itemOID, code) -> (contains(itemOID, "_loinc") ? LAB_CODING_TEMPLATES : CODING_TEMPLATES).getAll(code));
   }
 
   protected final Coding createCoding(CommonCodeSystem system, String code, String display) {
@@ -261,117 +258,125 @@ public abstract class Item {
   }
 
   protected final Coding createCoding(ItemData itemData) {
-    var coding = new Coding();
+    return itemData.isEmpty() ? new Coding() : createCoding(itemData, CODING_TEMPLATES.get(itemData.getValue()));
+  }
 
-    if (!itemData.isEmpty()) {
-      var items = split(itemData.getValue(), "_");
+  protected final Coding createLabCoding(ItemData itemData) {
+    return itemData.isEmpty() ? new Coding() : createCoding(itemData, LAB_CODING_TEMPLATES.get(itemData.getValue()));
+  }
 
-      var system = "";
-      var version = "";
-      var systemOID = "";
-      var code = "";
+  protected final List<Coding> createCodings(ItemData itemData) {
+    return createCodings(itemData, CODING_TEMPLATES);
+  }
 
-      if (items.length == 1) {
-        code = items[0];
-      } else if (items.length == 2) {
-        systemOID = items[0];
-        code = items[1];
-      }
+  protected final List<Coding> createLabCodings(ItemData itemData) {
+    return createCodings(itemData, LAB_CODING_TEMPLATES);
+  }
 
-      if (isBlank(systemOID)) {
-        logInvalidValue(CODESYSTEM, itemData.copy().setValue(systemOID));
-      } else if ("NoCodeSystem".equals(systemOID)) {
-        // Do nothing...
-      } else {
-        system = CODE_SYSTEMS.get(systemOID);
-        if (isBlank(system)) {
-          logInvalidValue(CODESYSTEM, itemData.copy().setValue(systemOID));
-          system = "urn:oid:" + systemOID;
-        } else {
-          items = split(system, "|");
-          if (items.length == 2) {
-            system = items[0];
-            version = items[1];
-          }
-        }
-      }
+  private List<Coding> createCodings(ItemData itemData, CodingTemplates codingTemplates) {
+    return itemData.isEmpty() ? List.of() :
+        codingTemplates.getAll(itemData.getValue()).stream()
+            .map(codingTemplate -> createCoding(itemData, codingTemplate))
+            .filter(Coding::hasCode)
+            .collect(toList());
+  }
 
-      if (isBlank(code)) {
-        logInvalidValue(CODING, itemData.copy().setValue(code));
-        code = "";
-      } else if ("NoCode".equals(code)) {
-        code = "";
-      }
+  private Coding createCoding(ItemData itemData, CodingTemplate codingTemplate) {
+    codingTemplate.invalidParts().forEach(invalidPart -> logInvalidValue(invalidPart.type(),
+                                                                         itemData.copy().setValue(invalidPart.value()), new Coding()));
+    return codingTemplate.isEmpty() ?
+        new Coding() : createCoding(codingTemplate.system(), codingTemplate.code(), codingTemplate.display(), codingTemplate.version());
+  }
 
-      coding = createCoding(system, code, null, version);
+  private static CodingTemplate parseCoding(String value) {
+    if (isBlank(value)) {
+      return CodingTemplate.EMPTY;
     }
 
-    return coding;
-  }
-
-  protected final Coding createLabCoding(ItemData itemData) {
-    var coding = new Coding();
+    var items = split(value, "_");
+    var invalidParts = new ArrayList<InvalidPart>();
 
-    if (!itemData.isEmpty()) {
-      var items = split(itemData.getValue(), "_");
+    var system = "";
+    var version = "";
+    var systemOID = "";
+    var code = "";
 
-      var system = "";
-      var code = "";
-      var display = "";
+    if (items.length == 1) {
+      code = items[0];
+    } else if (items.length == 2) {
+      systemOID = items[0];
+      code = items[1];
+    }
 
-      switch (items.length) {
-        case 1 -> {
-          code = items[0];
-          system = LOINC.getUrl();
-        }
-        case 2 -> {
-          code = items[0];
-          display = items[1];
-          system = LOINC.getUrl();
-        }
-        case 3 -> {
+    if (isBlank(systemOID)) {
+      invalidParts.add(new InvalidPart(CODESYSTEM.toCode(), systemOID));
+    } else if ("NoCodeSystem".equals(systemOID)) {
+      // Do nothing...
+    } else {
+      system = CODE_SYSTEMS.get(systemOID);
+      if (isBlank(system)) {
+        invalidParts.add(new InvalidPart(CODESYSTEM.toCode(), systemOID));
+        system = "urn:oid:" + systemOID;
+      } else {
+        items = split(system, "|");
+        if (items.length == 2) {
           system = items[0];
-          code = items[1];
-          display = items[2];
+          version = items[1];
         }
       }
+    }
 
-      if (isBlank(code)) {
-        logInvalidValue(CODING, itemData.copy().setValue(code));
-        code = "";
-      } else if ("NoCode".equals(code)) {
-        code = "";
-      }
-
-      coding = createCoding(system, code, display);
+    if (isBlank(code)) {
+      invalidParts.add(new InvalidPart(CODING.toCode(), code));
+      code = "";
+    } else if ("NoCode".equals(code)) {
+      code = "";
     }
 
-    return coding;
+    return new CodingTemplate(system, code, null, version, List.copyOf(invalidParts));
   }
 
-  protected final List<Coding> createCodings(ItemData itemData) {
-    return itemData.isEmpty() ? List.of() :
-        Arrays.stream(splitByWholeSeparator(itemData.getValue(), "__"))
-            .map(value -> itemData.copy().setValue(value))
-            .map(this::createCoding)
-            .filter(Coding::hasCode)
-            .collect(toList());
-  }
+  private static CodingTemplate parseLabCoding(String value) {
+    if (isBlank(value)) {
+      return CodingTemplate.EMPTY;
+    }
 
-  protected final List<Coding> createLabCodings(ItemData itemData) {
-    return itemData.isEmpty() ? List.of() :
-        Arrays.stream(splitByWholeSeparator(itemData.getValue(), "__"))
-            .map(value -> itemData.copy().setValue(value))
-            .map(this::createLabCoding)
-            .filter(Coding::hasCode)
-            .collect(toList());
+    var items = split(value, "_");
+    var invalidParts = new ArrayList<InvalidPart>();
+
+    var system = "";
+    var code = "";
+    var display = "";
+
+    switch (items.length) {
+      case 1 -> {
+        code = items[0];
+        system = LOINC.getUrl();
+      }
+      case 2 -> {
+        code = items[0];
+        display = items[1];
+        system = LOINC.getUrl();
+      }
+      case 3 -> {
+        system = items[0];
+        code = items[1];
+        display = items[2];
+      }
+    }
+
+    if (isBlank(code)) {
+      invalidParts.add(new InvalidPart(CODING.toCode(), code));
+      code = "";
+    } else if ("NoCode".equals(code)) {
+      code = "";
+    }
+
+    return new CodingTemplate(system, code, display, null, List.copyOf(invalidParts));
   }
 
-  @SuppressWarnings("ConstantConditions")
   protected CodeableConcept createCodeableConcept(Enum<?> value) {
-    Function<String, String> function = method -> invokeMethod(findMethod(value.getClass(), method), value).toString();
-    return new CodeableConcept() // NOTE Ugly workaround as HAPI enums do not implement a common interface
-        .setCoding(List.of(createCoding(function.apply("getSystem"), function.apply("toCode"), function.apply("getDisplay"))));
+    return getCodeableConcept(value);
   }
 
   protected final CodeableConcept createCodeableConcept(ItemData itemData) {
@@ -396,15 +401,16 @@ public abstract class Item {
     var formData = itemGroupData.getFormData();
     var studyEventData = formData.getStudyEventData();
     var subjectData = studyEventData.getSubjectData();
-    var value = format("%s-%s.%s-%s.%s-%s.%s-%s",
-                       subjectData.getSubjectKey(),
-                       studyEventData.getStudyEventOID(), studyEventData.getStudyEventRepeatKey(),
-                       formData.getFormOID(), formData.getFormRepeatKey(),
-                       itemGroupData.getItemGroupOID(), itemGroupData.getItemGroupRepeatKey(),
-                       itemData.getItemOID());
+    var value = new StringBuilder(128)
+        .append(subjectData.getSubjectKey())
+        .append('-').append(studyEventData.getStudyEventOID()).append('.').append(studyEventData.getStudyEventRepeatKey())
+        .append('-').append(formData.getFormOID()).append('.').append(formData.getFormRepeatKey())
+        .append('-').append(itemGroupData.getItemGroupOID()).append('.').append(itemGroupData.getItemGroupRepeatKey())
+        .append('-').append(itemData.getItemOID())
+        .toString();
 
     if (!ENVIRONMENT.containsProperty("debug"))  {
-      value = sha256Hex(value);
+      value = hash(value);
     }
 
     return new Identifier().setSystem(getIdentifierSystem(resourceType)).setValue(value);
@@ -455,7 +461,7 @@ public abstract class Item {
 
     if (itemData != null) {
       if (itemData.isEmpty()) {
-        dateType = UNKNOWN_DATE;
+        dateType = UNKNOWN_DATE.copy();
       } else {
         try {
           dateType = new DateType(itemData.getValue());
@@ -478,7 +484,7 @@ public abstract class Item {
 
     if (itemData != null) {
       if (itemData.isEmpty()) {
-        dateTimeType = UNKNOWN_DATE_TIME;
+        dateTimeType = UNKNOWN_DATE_TIME.copy();
       } else {
         try {
           var value = itemData.getValue();
@@ -570,4 +576,55 @@ public abstract class Item {
     }
   }
 
+  private record InvalidPart(String type, String value) {}
+
+  private record CodingTemplate(String system, String code, String display, String version, List<InvalidPart> invalidParts) {
+
+    private static final CodingTemplate EMPTY = new CodingTemplate(null, null, null, null, List.of());
+
+    private boolean isEmpty() {
+      return code == null;
+    }
+
+  }
+
+  private static final class CodingTemplates {
+
+    // Bound for values not stemming from the code lists (e.g. of DIS exports)
+    private static final int MAX_SIZE = 16384;
+
+    private final Function<String, CodingTemplate> parser;
+
+    private final Map<String, CodingTemplate> codingTemplates = new ConcurrentHashMap<>();
+    private final Map<String, List<CodingTemplate>> codingTemplateLists = new ConcurrentHashMap<>();
+
+    private CodingTemplates(Function<String, CodingTemplate> parser) {
+      this.parser = parser;
+    }
+
+    private CodingTemplate get(String value) {
+      return get(codingTemplates, value, parser);
+    }
+
+    // Templates of all '__' separated codings of a value
+    private List<CodingTemplate> getAll(String value) {
+      return get(codingTemplateLists, value,
+                 key -> Arrays.stream(splitByWholeSeparator(key, "__")).map(this::get).toList());
+    }
+
+    private static <T> T get(Map<String, T> cache, String value, Function<String, T> parser) {
+      var parsed = cache.get(value);
+
+      if (parsed == null) {
+        parsed = parser.apply(value);
+        if (cache.size() < MAX_SIZE) {
+          cache.putIfAbsent(value, parsed);
+        }
+      }
+
+      return parsed;
+    }
+
+  }
+
 }
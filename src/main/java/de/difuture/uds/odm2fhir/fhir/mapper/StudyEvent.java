@@ -34,41 +34,32 @@ import de.difuture.uds.odm2fhir.fhir.mapper.therapy.Therapy;
 import de.difuture.uds.odm2fhir.fhir.mapper.vital_signs.VitalSigns;
 import de.difuture.uds.odm2fhir.odm.model.StudyEventData;
 
-import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Reference;
 
-import lombok.Getter;
-
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static de.difuture.uds.odm2fhir.util.EnvironmentProvider.ENVIRONMENT;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.createId;
 import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.getIdentifierSystem;
-
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
-import static org.apache.commons.lang3.StringUtils.equalsAny;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.hash;
+import static de.difuture.uds.odm2fhir.fhir.util.ResourceAccessors.setEncounter;
+import static de.difuture.uds.odm2fhir.fhir.util.TerminologyRegistry.getCoding;
 
 import static org.hl7.fhir.r4.model.Encounter.EncounterStatus.UNKNOWN;
-import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONSENT;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.ENCOUNTER;
-import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.MEDICATIONSTATEMENT;
 import static org.hl7.fhir.r4.model.codesystems.V3ActCode.IMP;
 
-import static org.springframework.util.ReflectionUtils.findMethod;
-import static org.springframework.util.ReflectionUtils.invokeMethod;
-
-import static java.lang.String.format;
-
 public class StudyEvent {
 
-  @Getter
-  private Subject subject;
-
-  private Reference encounterReference;
+  private static final Pattern ENCOUNTER_STUDY_EVENT_OIDS = Pattern.compile("GECCOVISIT|Event.\\d_fall_arm_1");
 
   private final List<Form> forms = List.of(new Consent(),
                                            new OnsetOfIllness(),
@@ -85,47 +76,48 @@ public class StudyEvent {
                                            new VitalSigns(),
                                            new OutcomeAtDischarge());
 
-  public Stream<DomainResource> map(Subject subject, StudyEventData studyEventData) {
-    this.subject = subject;
+  // Form OIDs (REDCap's prefixed by 'Form.' as well as DIS' plain ones) are resolved once to the forms mapping them
+  private final Map<String, List<Form>> formsByOID = new ConcurrentHashMap<>();
 
+  public Stream<DomainResource> map(MappingContext mappingContext, StudyEventData studyEventData) {
     var encounter = new Encounter();
 
     if (ENVIRONMENT.getProperty("fhir.encounters.enabled", Boolean.class, false) &&
-        studyEventData.getStudyEventOID().matches("GECCOVISIT|Event.\\d_fall_arm_1")) {
-      var value = format("%s-%s.%s",
-                         studyEventData.getSubjectData().getSubjectKey(),
-                         studyEventData.getStudyEventOID(), studyEventData.getStudyEventRepeatKey());
+        ENCOUNTER_STUDY_EVENT_OIDS.matcher(studyEventData.getStudyEventOID()).matches()) {
+      var value = studyEventData.getSubjectData().getSubjectKey() + "-" +
+                  studyEventData.getStudyEventOID() + "." + studyEventData.getStudyEventRepeatKey();
 
       if (!ENVIRONMENT.containsProperty("debug")) {
-        value = sha256Hex(value);
+        value = hash(value);
       }
 
       var encounterIdentifier = new Identifier()
           .setSystem(getIdentifierSystem(ENCOUNTER))
           .setValue(value)
-          .setAssigner(subject.getOrganizationReference());
+          .setAssigner(mappingContext.organizationReference());
 
       encounter.setStatus(UNKNOWN)
-          .setClass_(new Coding(IMP.getSystem(), IMP.toCode(), IMP.getDisplay()))
+          .setClass_(getCoding(IMP))
           .addIdentifier(encounterIdentifier)
-          .setId(sha256Hex(encounterIdentifier.getSystem() + encounterIdentifier.getValue()));
+          .setId(createId(encounterIdentifier));
 
-      encounterReference = new Reference(format("%s/%s", ENCOUNTER.toCode(), encounter.getId()));
     }
 
     var domainResources = studyEventData.getFormData().stream()
-        .flatMap(formData -> forms.stream().map(form -> form.map(this, formData)))
+        .flatMap(formData -> formsByOID.computeIfAbsent(formData.getFormOID(), this::getForms).stream()
+                                       .map(form -> form.map(mappingContext, formData)))
         .flatMap(Function.identity());
 
-    return encounter.isEmpty() ? domainResources :
-           Stream.concat(Stream.of(encounter), domainResources.peek(this::setEncounter));
+    if (encounter.isEmpty()) {
+      return domainResources;
+    }
+
+    var encounterReference = new Reference(ENCOUNTER.toCode() + "/" + encounter.getId());
+    return Stream.concat(Stream.of(encounter), domainResources.peek(domainResource -> setEncounter(domainResource, encounterReference)));
   }
 
-  private void setEncounter(DomainResource domainResource) {
-    if (!equalsAny(domainResource.fhirType(), CONSENT.toCode(), MEDICATIONSTATEMENT.toCode())) {
-      invokeMethod(
-          findMethod(domainResource.getClass(), "setEncounter", Reference.class), domainResource, encounterReference);
-    }
+  private List<Form> getForms(String formOID) {
+    return forms.stream().filter(form -> formOID.endsWith(form.getOID())).toList();
   }
 
 }
\ No newline at end of file
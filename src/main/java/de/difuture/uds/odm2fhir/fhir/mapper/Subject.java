@@ -21,14 +21,10 @@ package de.difuture.uds.odm2fhir.fhir.mapper;
 import de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition;
 import de.difuture.uds.odm2fhir.odm.model.SubjectData;
 
-import lombok.Getter;
-
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
-import org.hl7.fhir.r4.model.Consent;
 import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.Identifier;
-import org.hl7.fhir.r4.model.Immunization;
 import org.hl7.fhir.r4.model.Meta;
 import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.Patient;
@@ -37,37 +33,28 @@ import org.hl7.fhir.r4.model.Reference;
 import java.util.stream.Stream;
 
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.IDENTIFIER_TYPE_CODES;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.createId;
 import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.getIdentifierAssigner;
 import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.getIdentifierSystem;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.hash;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.hashRunConstant;
+import static de.difuture.uds.odm2fhir.fhir.util.ResourceAccessors.getIdentifierFirstRep;
+import static de.difuture.uds.odm2fhir.fhir.util.ResourceAccessors.setPatient;
 import static de.difuture.uds.odm2fhir.util.EnvironmentProvider.ENVIRONMENT;
 
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
-import static org.apache.commons.lang3.StringUtils.equalsAny;
-
 import static org.hl7.fhir.r4.model.codesystems.V3Hl7PublishingDomain.MR;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.ORGANIZATION;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.PATIENT;
 
-import static org.springframework.util.ReflectionUtils.findMethod;
-import static org.springframework.util.ReflectionUtils.invokeMethod;
-
-import static java.lang.String.format;
-
 public class Subject {
 
-  @Getter
-  private Patient patient;
-
-  @Getter
-  private Reference organizationReference;
-
-  private Reference patientReference;
+  private final StudyEvent studyEvent = new StudyEvent();
 
   public Stream<DomainResource> map(SubjectData subjectData) {
     var value = getIdentifierAssigner();
 
     if (!ENVIRONMENT.containsProperty("debug")) {
-      value = sha256Hex(value);
+      value = hashRunConstant(value);
     }
 
     var organization = new Organization();
@@ -80,18 +67,18 @@ public class Subject {
       organization = (Organization) new Organization()
           .setName(getIdentifierAssigner())
           .addIdentifier(organizationIdentifier)
-          .setId(sha256Hex(organizationIdentifier.getSystem() + organizationIdentifier.getValue()));
+          .setId(hashRunConstant(organizationIdentifier.getSystem() + organizationIdentifier.getValue()));
 
     }
 
-    organizationReference = new Reference(format("%s/%s", ORGANIZATION.toCode(), organization.isEmpty() ?
-                                                                                 getIdentifierAssigner() : organization.getId()));
+    var organizationReference = new Reference(ORGANIZATION.toCode() + "/" + (organization.isEmpty() ?
+                                                                             getIdentifierAssigner() : organization.getId()));
 
     value = subjectData.getSubjectKey();
 
     if (!ENVIRONMENT.containsProperty("debug") &&
         ENVIRONMENT.getProperty("odm.subjectkeys.hashed", Boolean.class, true)) {
-      value = sha256Hex(value);
+      value = hash(value);
     }
 
     var patientIdentifier = new Identifier()
@@ -100,35 +87,24 @@ public class Subject {
         .setType(new CodeableConcept(new Coding().setSystem(IDENTIFIER_TYPE_CODES.getUrl()).setCode(MR.toCode())))
         .setAssigner(organizationReference);
 
-    patient = (Patient) new Patient()
+    var patient = (Patient) new Patient()
         .addIdentifier(patientIdentifier)
-        .setId(sha256Hex(patientIdentifier.getSystem() + patientIdentifier.getValue()))
+        .setId(createId(patientIdentifier))
         .setMeta(new Meta().addProfile(NUMStructureDefinition.PATIENT.getUrl()));
 
-    patientReference = new Reference(format("%s/%s", PATIENT.toCode(), patient.getId()));
+    var patientReference = new Reference(PATIENT.toCode() + "/" + patient.getId());
+    var mappingContext = new MappingContext(patient, organizationReference);
 
     return Stream.concat(
         Stream.of(patient, organization),
         subjectData.getMergedStudyEventData().stream()
-            .flatMap(studyEventData -> new StudyEvent().map(this, studyEventData))
+            .flatMap(studyEventData -> studyEvent.map(mappingContext, studyEventData))
             .peek(this::setId)
-            .peek(this::setPatientSubject));
+            .peek(domainResource -> setPatient(domainResource, patientReference)));
   }
 
   private void setId(DomainResource domainResource) {
-    var identifier = (Identifier) invokeMethod(
-        findMethod(domainResource.getClass(), "getIdentifierFirstRep"), domainResource);
-    domainResource.setId(sha256Hex(identifier.getSystem() + identifier.getValue()));
-  }
-
-  private void setPatientSubject(DomainResource domainResource) {
-    if (!equalsAny(domainResource.fhirType(), PATIENT.toCode(), ORGANIZATION.toCode())) {
-      invokeMethod(
-          findMethod(domainResource.getClass(),
-              (domainResource instanceof Immunization || domainResource instanceof Consent ? "setPatient" : "setSubject"),
-              Reference.class),
-          domainResource, patientReference);
-    }
+    domainResource.setId(createId(getIdentifierFirstRep(domainResource)));
   }
 
 }
\ No newline at end of file
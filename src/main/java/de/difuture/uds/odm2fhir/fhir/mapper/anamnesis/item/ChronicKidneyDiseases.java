@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -37,7 +38,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 
 public class ChronicKidneyDiseases extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("chronische_nierenerkrankungen");
     var stageCoding = formData.getItemData("chronische_nierenerkrankungen_schweregrad");
     var generalCoding = formData.getItemData("chronische_nierenerkrankungen_code", "1");
@@ -53,10 +54,10 @@ public class ChronicKidneyDiseases extends Item {
 
   private Condition createCondition(ItemData generalCoding, ItemData answerCoding, ItemData stageCoding) {
     var condition = (Condition) new Condition()
-        .setClinicalStatus(ACTIVE)
-        .setVerificationStatus(CONFIRMED)
+        .setClinicalStatus(ACTIVE.copy())
+        .setVerificationStatus(CONFIRMED.copy())
         .addIdentifier(createIdentifier(CONDITION, generalCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "394589003", "Nephrology (qualifier value)")))
         .setSeverity(createCodeableConcept(stageCoding))
         .setMeta(createMeta(CHRONIC_KIDNEY_DISEASES));
@@ -65,12 +66,12 @@ public class ChronicKidneyDiseases extends Item {
     for (var coding : createCodings(answerCoding)) {
       switch (coding.getCode()) {
         case "410594000": //NO
-          condition.setVerificationStatus(REFUTED).setClinicalStatus(null); //remove clinicalStatus
+          condition.setVerificationStatus(REFUTED.copy()).setClinicalStatus(null); //remove clinicalStatus
           updateCodeableConcept(codeableConcept, generalCoding);
           break;
         case "261665006": //UNKNOWN
           condition.setVerificationStatus(null).setClinicalStatus(null) //remove verificationStatus and clinicalStatus
-              .addModifierExtension(DATA_PRESENCE_UNKNOWN);
+              .addModifierExtension(DATA_PRESENCE_UNKNOWN.copy());
           updateCodeableConcept(codeableConcept, generalCoding);
           break;
         case "unknown": //UNKNOWN
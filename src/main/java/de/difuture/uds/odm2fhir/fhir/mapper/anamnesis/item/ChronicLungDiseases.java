@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -41,7 +42,7 @@ import static java.util.function.Predicate.not;
 
 public class ChronicLungDiseases extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var itemGroupData = formData.getItemGroupData("anamnese_risikofaktoren.chronische_lungenerkrankungen_asthma");
     var generalPresence = formData.getItemData("chronische_lungenerkrankungen");
 
@@ -57,16 +58,16 @@ public class ChronicLungDiseases extends Item {
   private Condition createCondition(ItemData resourceCoding, ItemData textValue) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, resourceCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "418112009", "Pulmonary medicine (qualifier value)")))
         .setMeta(createMeta(CHRONIC_LUNG_DISEASES));
 
     var codeableConcept = new CodeableConcept();
     for (var coding : createCodings(resourceCoding)) {
       switch (coding.getCode()) {
-        case "410605003" -> condition.setClinicalStatus(ACTIVE).setVerificationStatus(CONFIRMED); //YES
-        case "410594000" -> condition.setVerificationStatus(REFUTED); //NO
-        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN); //UNKNOWN
+        case "410605003" -> condition.setClinicalStatus(ACTIVE.copy()).setVerificationStatus(CONFIRMED.copy()); //YES
+        case "410594000" -> condition.setVerificationStatus(REFUTED.copy()); //NO
+        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy()); //UNKNOWN
         default -> codeableConcept.addCoding(coding); //add ConditionCoding
       }
 
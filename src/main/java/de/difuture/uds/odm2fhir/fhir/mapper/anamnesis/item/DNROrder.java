@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -37,7 +38,7 @@ public class DNROrder extends Item {
 
   private static final String POLICY = "https://www.aerzteblatt.de/archiv/65440/DNR-Anordnungen-Das-fehlende-Bindeglied";
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("dnranordnung");
 
     return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createConsent(answerCoding));
@@ -46,10 +47,10 @@ public class DNROrder extends Item {
   private Consent createConsent(ItemData answerCoding) {
     return (Consent) new Consent()
         .addIdentifier(createIdentifier(CONSENT, answerCoding))
-        .setDateTimeElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setDateTimeElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .setStatus(ConsentState.ACTIVE)
-        .setScope(ADR)
-        .addCategory(DNR)
+        .setScope(ADR.copy())
+        .addCategory(DNR.copy())
         .addPolicy(new ConsentPolicyComponent().setUri(POLICY))
         .setProvision(new Consent.provisionComponent().addCode(createCodeableConcept(answerCoding)))
         .setMeta(createMeta(DO_NOT_RESUSCITATE_ORDER));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -36,7 +37,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 public class DiabetesMellitus extends Item {
 
   @Override
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("diabetes");
     var resourceCoding = formData.getItemData("diabetes_code", "1");
 
@@ -46,7 +47,7 @@ public class DiabetesMellitus extends Item {
   private Condition createCondition(ItemData resourceCoding, ItemData answerCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, resourceCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "408475000", "Diabetic medicine (qualifier value)")))
         .setMeta(createMeta(DIABETES_MELLITUS));
 
@@ -54,17 +55,17 @@ public class DiabetesMellitus extends Item {
     for (var coding : createCodings(answerCoding)) {
       switch (coding.getCode()) {
         case "410594000": //NO
-          condition.setVerificationStatus(REFUTED);
+          condition.setVerificationStatus(REFUTED.copy());
           updateCodeableConcept(codeableConcept, resourceCoding);
           break;
         case "unknown":
           break; //do nothing
         case "261665006": //UNKNOWN
-          condition.addModifierExtension(DATA_PRESENCE_UNKNOWN);
+          condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy());
           updateCodeableConcept(codeableConcept, resourceCoding);
           break;
         default: //assuming YES
-          condition.setVerificationStatus(CONFIRMED);
+          condition.setVerificationStatus(CONFIRMED.copy());
           codeableConcept.addCoding(coding);
           break;
       }
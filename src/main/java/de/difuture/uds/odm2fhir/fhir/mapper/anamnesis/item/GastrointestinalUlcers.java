@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,7 +35,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 
 public class GastrointestinalUlcers extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("magengeschwure");
     var generalCoding = formData.getItemData("magengeschwure_code", "1");
 
@@ -44,15 +45,15 @@ public class GastrointestinalUlcers extends Item {
   private Condition createCondition(ItemData generalCoding, ItemData answerCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, generalCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "394584008", "Gastroenterology (qualifier value)")))
         .setMeta(createMeta(GASTROINTESTINAL_ULCERS));
 
     for (var coding : createCodings(answerCoding)) {
       switch (coding.getCode()) {
-        case "410605003" -> condition.setClinicalStatus(ACTIVE).setVerificationStatus(CONFIRMED); //YES
-        case "410594000" -> condition.setVerificationStatus(REFUTED); //NO
-        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN); //UNKNOWN
+        case "410605003" -> condition.setClinicalStatus(ACTIVE.copy()).setVerificationStatus(CONFIRMED.copy()); //YES
+        case "410594000" -> condition.setVerificationStatus(REFUTED.copy()); //NO
+        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy()); //UNKNOWN
       }
     }
 
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -26,14 +27,19 @@ import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Observation.ObservationComponentComponent;
 
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.ISO_3166_COUNTRY_CODES;
+import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.ISO_3166_GERMAN_STATE_CODES;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.LOINC;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.HISTORY_OF_TRAVEL;
+import static de.difuture.uds.odm2fhir.fhir.util.TerminologyRegistry.getDisplay;
+
+import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
+import static org.apache.commons.lang3.ObjectUtils.getIfNull;
 
 import static org.hl7.fhir.r4.model.Observation.ObservationStatus.FINAL;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
@@ -43,30 +49,7 @@ import static java.util.function.Predicate.not;
 
 public class HistoryOfTravel extends Item {
 
-  private static final Map<String, String> STATES;
-
-  static {
-    STATES = new HashMap<>();
-
-    STATES.put("DE-BW", "Baden-Württemberg");
-    STATES.put("DE-BY", "Bayern");
-    STATES.put("DE-BE", "Berlin");
-    STATES.put("DE-BB", "Brandenburg");
-    STATES.put("DE-HB", "Bremen");
-    STATES.put("DE-HH", "Hamburg");
-    STATES.put("DE-HE", "Hessen");
-    STATES.put("DE-MV", "Mecklenburg-Vorpommern");
-    STATES.put("DE-NI", "Niedersachsen");
-    STATES.put("DE-NW", "Nordrhein-Westfalen");
-    STATES.put("DE-RP", "Rheinland-Pfalz");
-    STATES.put("DE-SL", "Saarland");
-    STATES.put("DE-SN", "Sachsen");
-    STATES.put("DE-ST", "Sachsen-Anhalt");
-    STATES.put("DE-SH", "Schleswig-Holstein");
-    STATES.put("DE-TH", "Thüringen");
-  }
-
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("reiseaktivitat");
     var generalCoding = formData.getItemData("reiseaktivitat_code", "1");
 
@@ -80,15 +63,15 @@ public class HistoryOfTravel extends Item {
             .filter(map -> map.values()
                 .stream()
                 .anyMatch(not(ItemData::isEmpty)))
-            .map(travelActivity -> createObservation(generalCoding, answerCoding, travelActivity));
+            .map(travelActivity -> createObservation(mappingContext, generalCoding, answerCoding, travelActivity));
   }
 
-  private Observation createObservation(ItemData generalCoding, ItemData answerCoding, Map<String, ItemData> travelActivity) {
+  private Observation createObservation(MappingContext mappingContext, ItemData generalCoding, ItemData answerCoding, Map<String, ItemData> travelActivity) {
     var observation = (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, travelActivity.get("country")).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, travelActivity.get("country")).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(SOCIAL_HISTORY)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(SOCIAL_HISTORY.copy())
         .setMeta(createMeta(HISTORY_OF_TRAVEL));
 
     var codeCodeableConcept = createCodeableConcept(generalCoding).setText("History of Travel");
@@ -120,7 +103,8 @@ public class HistoryOfTravel extends Item {
     var country = travelActivity.get("country");
     if (!country.isEmpty()) {
       var countryCoding = createCoding(country);
-      countryCoding.setDisplay(new Locale("", countryCoding.getCode()).getDisplayCountry(ENGLISH));
+      countryCoding.setDisplay(getIfNull(getDisplay(ISO_3166_COUNTRY_CODES, countryCoding.getCode()),
+                                         () -> new Locale("", countryCoding.getCode()).getDisplayCountry(ENGLISH)));
       observation.addComponent(new ObservationComponentComponent()
           .setCode(createCodeableConcept(createCoding(LOINC, "94651-7", "Country of travel [Location]"))
               .setText("Country of travel"))
@@ -130,7 +114,7 @@ public class HistoryOfTravel extends Item {
     var state = travelActivity.get("state");
     if (!state.isEmpty()) {
       var stateCoding = createCoding(state);
-      stateCoding.setDisplay(STATES.getOrDefault(stateCoding.getCode(), stateCoding.getCode()));
+      stateCoding.setDisplay(defaultIfNull(getDisplay(ISO_3166_GERMAN_STATE_CODES, stateCoding.getCode()), stateCoding.getCode()));
       observation.addComponent(new ObservationComponentComponent()
           .setCode(createCodeableConcept(createCoding(LOINC, "82754-3", "State of travel"))
               .setText("State of travel"))
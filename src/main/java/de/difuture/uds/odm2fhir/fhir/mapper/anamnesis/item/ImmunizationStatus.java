@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
@@ -45,7 +46,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.IMMUNIZATION;
 
 public class ImmunizationStatus extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var itemGroupData = formData.getItemGroupData("anamnese_risikofaktoren.impfungen_influenza");
 
     return itemGroupData.isEmpty() ? Stream.empty() :
@@ -123,7 +124,7 @@ public class ImmunizationStatus extends Item {
 
     immunization.setVaccineCode(vaccineCodeableCoding)
         .addProtocolApplied(new ImmunizationProtocolAppliedComponent()
-            .setDoseNumber((StringType) new StringType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON))
+            .setDoseNumber((StringType) new StringType().addExtension(DATA_ABSENT_FOR_UNKNOWN_REASON.copy()))
             .addTargetDisease(diseaseCodeableCoding));
 
     return immunization;
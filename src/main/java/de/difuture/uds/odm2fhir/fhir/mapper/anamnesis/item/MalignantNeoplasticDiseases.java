@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,7 +35,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 
 public class MalignantNeoplasticDiseases extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("aktive_tumorkrebserkrankungen");
     var generalCoding = formData.getItemData("aktive_tumorkrebserkrankungen_code", "1");
 
@@ -44,7 +45,7 @@ public class MalignantNeoplasticDiseases extends Item {
   private Condition createCondition(ItemData generalCoding, ItemData answerCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, generalCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "394593009", "Medical oncology (qualifier value)")))
         .setMeta(createMeta(MALIGNANT_NEOPLASTIC_DISEASE));
 
@@ -52,14 +53,14 @@ public class MalignantNeoplasticDiseases extends Item {
       switch (coding.getCode()) {
         case "active":
         case "remission":
-          condition.setClinicalStatus(ACTIVE).setVerificationStatus(CONFIRMED);
+          condition.setClinicalStatus(ACTIVE.copy()).setVerificationStatus(CONFIRMED.copy());
           break;
         case "410594000":
-          condition.setVerificationStatus(REFUTED);
+          condition.setVerificationStatus(REFUTED.copy());
           break;
         default:
         case "261665006":
-          condition.addModifierExtension(DATA_PRESENCE_UNKNOWN);
+          condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy());
           break;
         case "unknown": //already caught by case "261665006"
       }
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.anamnesis.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -40,7 +41,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.PROCEDURE;
 
 public class RespiratoryTherapies extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("bestehende_sauerstoff_oder_beatmungstherapie");
     var generalCoding = formData.getItemData("bestehende_sauerstoff_oder_beatmungstherapie_code", "1");
 
@@ -50,7 +51,7 @@ public class RespiratoryTherapies extends Item {
   private Procedure createProcedure(ItemData generalCoding, ItemData answerCoding) {
     var procedure = (Procedure) new Procedure()
         .addIdentifier(createIdentifier(PROCEDURE, generalCoding))
-        .setPerformed(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setPerformed(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .setCategory(createCodeableConcept(createCoding(SNOMED_CT, "277132007", "Therapeutic procedure (procedure)")))
         .setMeta(createMeta(RESPIRATORY_THERAPIES));
 
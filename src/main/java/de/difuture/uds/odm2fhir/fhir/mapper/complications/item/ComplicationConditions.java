@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.complications.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -41,7 +42,7 @@ public class ComplicationConditions extends Item {
                                                             "lungenarterienembolie", "stroke", "myokardinfarkt",
                                                             "andere", "pulmonale_co_infektionen", "blutstrominfektionen");
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var generalComplicationCoding = formData.getItemData("komplikation_code", "1");
 
     return !"1".equals(formData.getItemData("komplikation").getValue()) ? Stream.empty() :
@@ -52,7 +53,7 @@ public class ComplicationConditions extends Item {
   private Condition createCondition(ItemData generalComplicationCoding, ItemData specificComplicationCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, specificComplicationCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(generalComplicationCoding))
         .setMeta(createMeta(COMPLICATIONS_COVID_19));
 
@@ -67,9 +68,9 @@ public class ComplicationConditions extends Item {
     var codeableConcept = new CodeableConcept();
     for (var coding : createCodings(specificComplicationCoding)) {
       switch (coding.getCode()) {
-        case "410605003" -> condition.setClinicalStatus(ACTIVE).setVerificationStatus(CONFIRMED); //confirmed
-        case "410594000" -> condition.setVerificationStatus(REFUTED); //refuted
-        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN); //unknown
+        case "410605003" -> condition.setClinicalStatus(ACTIVE.copy()).setVerificationStatus(CONFIRMED.copy()); //confirmed
+        case "410594000" -> condition.setVerificationStatus(REFUTED.copy()); //refuted
+        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy()); //unknown
         default -> codeableConcept.addCoding(coding); //Condition-codes
       }
     }
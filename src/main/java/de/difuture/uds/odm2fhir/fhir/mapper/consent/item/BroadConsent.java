@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.consent.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -103,21 +104,21 @@ public class BroadConsent extends Item {
     OIDS.put("projekt_codex_zusatz_4", 38);
   }
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var consentPresented = formData.getItemData("miibc_vorlage"); //1=Yes, 2=No, 3=Unknown
 
-    return !"1".equals(consentPresented.getValue()) ? Stream.empty() : Stream.of(createConsent(formData));
+    return !"1".equals(consentPresented.getValue()) ? Stream.empty() : Stream.of(createConsent(mappingContext, formData));
   }
 
   @SuppressWarnings("fallthrough")
-  private Consent createConsent(FormData formData) {
+  private Consent createConsent(MappingContext mappingContext, FormData formData) {
     var identifier = createIdentifier(CONSENT, formData.getItemData("miibc_consent_status"));
 
     var consent = (Consent) new Consent()
         .addIdentifier(identifier)
         .setDateTimeElement(createDateTimeType(formData.getItemData("miibc_dat_dok")))
-        .addOrganization(getOrganizationReference())
-        .setScope(RESEARCH)
+        .addOrganization(mappingContext.organizationReference())
+        .setScope(RESEARCH.copy())
         .addCategory(createCodeableConcept(createCoding(LOINC, "57016-8", "Privacy policy acknowledgment Document")))
         .addPolicy(new ConsentPolicyComponent().setUri(POLICY))
         .setMeta(createMeta(GERMAN_CONSENT));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.demographics.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 
 import org.hl7.fhir.r4.model.DomainResource;
@@ -33,14 +34,14 @@ import static java.util.Optional.ofNullable;
 
 public class Age extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("alter");
 
     // TODO Age should not be attached to a patient but rather to an encounter...
     if (!answerCoding.isEmpty()) {
-      ofNullable(getPatient().getExtensionByUrl(AGE.getUrl()))
-          .orElseGet(() -> getPatient().addExtension().setUrl(AGE.getUrl()))
-          .setExtension(List.of(new Extension("dateTimeOfDocumentation", UNKNOWN_DATE_TIME), // TODO Set actual DateTime value
+      ofNullable(mappingContext.patient().getExtensionByUrl(AGE.getUrl()))
+          .orElseGet(() -> mappingContext.patient().addExtension().setUrl(AGE.getUrl()))
+          .setExtension(List.of(new Extension("dateTimeOfDocumentation", UNKNOWN_DATE_TIME.copy()), // TODO Set actual DateTime value
                                 new Extension("age", createAge(answerCoding))));
     }
 
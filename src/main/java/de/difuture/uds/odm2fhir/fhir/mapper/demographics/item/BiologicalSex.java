@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.demographics.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,7 +35,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class BiologicalSex extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("biologisches_geschlecht");
     var generalCoding = formData.getItemData("biologisches_geschlecht_code", "1");
 
@@ -45,8 +46,8 @@ public class BiologicalSex extends Item {
     return (Observation) new Observation()
         .addIdentifier(createIdentifier(OBSERVATION, generalCoding))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(SOCIAL_HISTORY)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(SOCIAL_HISTORY.copy())
         .setCode(createCodeableConcept(generalCoding))
         .setValue(createCodeableConcept(answerCoding))
         .setMeta(createMeta(SEX_ASSIGNED_AT_BIRTH));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.demographics.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,19 +35,19 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class BodyHeight extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("korpergrose");
     var generalCoding = formData.getItemData("korpergrose_code", "1");
 
-    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(generalCoding, answerCoding));
+    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(mappingContext, generalCoding, answerCoding));
   }
 
-  private Observation createObservation(ItemData generalCoding, ItemData answerCoding) {
+  private Observation createObservation(MappingContext mappingContext, ItemData generalCoding, ItemData answerCoding) {
     return (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(VITAL_SIGNS)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(VITAL_SIGNS.copy())
         .setCode(createCodeableConcept(generalCoding).setText("Body height"))
         .setValue(createQuantity(answerCoding, "cm", "centimeter"))
         .setMeta(createMeta(BODY_HEIGHT));
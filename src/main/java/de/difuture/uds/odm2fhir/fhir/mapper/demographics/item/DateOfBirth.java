@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.demographics.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 
 import org.hl7.fhir.r4.model.DomainResource;
@@ -27,8 +28,8 @@ import java.util.stream.Stream;
 
 public class DateOfBirth extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
-    getPatient().setBirthDateElement(createDateType(formData.getItemData("geburtsdatum")));
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
+    mappingContext.patient().setBirthDateElement(createDateType(formData.getItemData("geburtsdatum")));
 
     return Stream.empty();
   }
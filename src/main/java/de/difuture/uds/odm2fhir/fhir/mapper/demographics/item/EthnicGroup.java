@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.demographics.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 
 import org.hl7.fhir.r4.model.DomainResource;
@@ -31,14 +32,14 @@ import static java.util.Optional.ofNullable;
 
 public class EthnicGroup extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("ethnische_zugehorigkeit");
 
     var coding = createCoding(answerCoding);
 
     if (!coding.isEmpty()) {
-      ofNullable(getPatient().getExtensionByUrl(ETHNIC_GROUP.getUrl()))
-          .orElseGet(() -> getPatient().addExtension().setUrl(ETHNIC_GROUP.getUrl()))
+      ofNullable(mappingContext.patient().getExtensionByUrl(ETHNIC_GROUP.getUrl()))
+          .orElseGet(() -> mappingContext.patient().addExtension().setUrl(ETHNIC_GROUP.getUrl()))
           .setValue(coding);
     }
 
@@ -19,12 +19,14 @@ package de.difuture.uds.odm2fhir.fhir.mapper.epidemiological_factors.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.codesystems.DataAbsentReason;
 
 import java.util.stream.Stream;
 
@@ -36,26 +38,26 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 public class KnownExposure extends Item {
 
   @Override
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("kontakt_mit_an_covid19_erkrankter_personq");
     var generalCoding = formData.getItemData("kontakt_mit_an_covid19_erkrankter_personq_code", "1");
 
-    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(generalCoding, answerCoding));
+    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(mappingContext, generalCoding, answerCoding));
   }
 
-  private Observation createObservation(ItemData generalCoding, ItemData answerCoding) {
+  private Observation createObservation(MappingContext mappingContext, ItemData generalCoding, ItemData answerCoding) {
     var observation = (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(SOCIAL_HISTORY)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(SOCIAL_HISTORY.copy())
         .setCode(createCodeableConcept(generalCoding).setText("Known exposure"))
         .setMeta(createMeta(KNOWN_EXPOSURE));
 
     var valueConcept = new CodeableConcept();
     for (var coding : createCodings(answerCoding)) {
-      if (UNKNOWN.getCodingFirstRep().getCode().equals(coding.getCode())) { //immediate return, no adding of valueConcept
-        return observation.setDataAbsentReason(UNKNOWN);
+      if (DataAbsentReason.UNKNOWN.toCode().equals(coding.getCode())) { //immediate return, no adding of valueConcept
+        return observation.setDataAbsentReason(UNKNOWN.copy());
       } else {
         valueConcept.addCoding(coding);
       }
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.imaging.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,10 +35,10 @@ import java.util.stream.Stream;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.DIAGNOSTIC_SERVICE_SECTION_ID;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.LOINC;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.SNOMED_CT;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.createId;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.DIAGNOSTIC_REPORT_RADIOLOGY;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.RADIOLOGY_PROCEDURES;
 
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.apache.commons.lang3.StringUtils.contains;
 import static org.apache.commons.lang3.StringUtils.equalsAny;
 
@@ -53,7 +54,7 @@ import static java.util.stream.Collectors.toMap;
 
 public class ImagingProcedures extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var techniqueGroup = formData.getItemGroupData("bildgebung.bildgebende_verfahren_ct");
     var befundGroup = formData.getItemGroupData("bildgebung.befund_bildgebender_verfahren_ct");
     var generalCoding = formData.getItemData("bildgebende_verfahren");
@@ -82,7 +83,7 @@ public class ImagingProcedures extends Item {
 
     return (DiagnosticReport) new DiagnosticReport()
         .addIdentifier(identifier)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .setStatus(FINAL)
         .addCategory(createCodeableConcept(
             createCoding(LOINC, "18726-0", "Radiology studies (set)"),
@@ -90,14 +91,14 @@ public class ImagingProcedures extends Item {
         .setCode(createCodeableConcept(createCoding(LOINC, "18748-4", "Diagnostic imaging study")))
         .addConclusionCode(createCodeableConcept(befundCoding))
         .setMeta(createMeta(DIAGNOSTIC_REPORT_RADIOLOGY))
-        .setId(sha256Hex(identifier.getSystem() + identifier.getValue()));
+        .setId(createId(identifier));
   }
 
   private Procedure createProcedure(ItemData techniqueCoding) {
     return (Procedure) new Procedure()
         .addIdentifier(createIdentifier(PROCEDURE, techniqueCoding))
         .setStatus(COMPLETED)
-        .setPerformed(UNKNOWN_DATE_TIME) // TODO Set actual Period value
+        .setPerformed(UNKNOWN_DATE_TIME.copy()) // TODO Set actual Period value
         .setCategory(createCodeableConcept(createCoding(SNOMED_CT, "103693007", "Diagnostic procedure (procedure)")))
         .addBodySite(createCodeableConcept(createCoding(SNOMED_CT, "39607008", "Lung structure (body structure)")))
         .setCode(new CodeableConcept().setCoding(
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.laboratory_values.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -47,21 +48,21 @@ public class LaboratoryValue extends Item {
                                                          "ptt", "thrombozyten_absolut", "inr", "serumalbumin", "antithrombin_iii",
                                                          "pct_procalcitonin", "il6_interleukin_6", "ntprobnp", "fibrinogen");
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     return PARAMETERS.stream()
         .map(formData::getItemData)
         .filter(not(ItemData::isEmpty))
-        .map(labValue -> createObservation(formData, labValue));
+        .map(labValue -> createObservation(mappingContext, formData, labValue));
   }
 
-  private Observation createObservation(FormData formData, ItemData labValue) {
+  private Observation createObservation(MappingContext mappingContext, FormData formData, ItemData labValue) {
     var labValueName = labValue.getItemOID();
 
     var dateCoding = formData.getItemData("labor_datum");
 
     var observation = (Observation) new Observation()
         .addIdentifier(createIdentifier(OBSERVATION, formData.getItemData(labValueName))
-                           .setType(OBI).setAssigner(getOrganizationReference()))
+                           .setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
         .setEffective(createDateTimeType(dateCoding))
         .addCategory(LABORATORY.copy().addCoding(createCoding(LOINC, "26436-6", "Laboratory studies (set)")))
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.laboratory_values.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
@@ -34,6 +35,7 @@ import java.util.Map;
 import java.util.stream.Stream;
 
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.LOINC;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.createId;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV_2_AB_PNL_SER_PL_IA;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV_2_AB_SER_PL_IA_ACNC;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV_2_AB_SER_PL_QL_IA;
@@ -44,7 +46,6 @@ import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV_2_IGM_SER_PL_IA_ACNC;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.SARS_COV_2_IGM_SER_PL_QL_IA;
 
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.apache.commons.lang3.StringUtils.removeStart;
 import static org.apache.commons.lang3.StringUtils.substringAfterLast;
 
@@ -71,7 +72,7 @@ public class SARSCoV2Antibodies extends Item {
                                                                              "ig_m_ia_ql", SARS_COV_2_IGM_SER_PL_QL_IA,
                                                                              "ig_m_ia_qn", SARS_COV_2_IGM_SER_PL_IA_ACNC);
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     // Extremely ugly and hacky workaround for non-existent panel parameter in form... :-/
     return PARAMETERS.stream()
         .map(key -> "sarsco_v2_covid19_" + key)
@@ -81,11 +82,11 @@ public class SARSCoV2Antibodies extends Item {
         .map(itemData -> {
           itemData = itemData.copy().setItemOID(PARAMETERS.get(0));
 
-          itemData.getItemGroupData().getItemData()
-                  .addAll(List.of(itemData, itemData.copy().setItemOID(itemData.getItemOID() + "_code")
-                                                           .setValue(HL7_OID + ".6.1_94504-8")));
+          itemData.getItemGroupData()
+                  .addItemData(itemData, itemData.copy().setItemOID(itemData.getItemOID() + "_code")
+                                                        .setValue(HL7_OID + ".6.1_94504-8"));
 
-          var observation = createObservation(formData, itemData);
+          var observation = createObservation(mappingContext, formData, itemData);
 
           return Stream.concat(
               Stream.of(observation),
@@ -93,13 +94,13 @@ public class SARSCoV2Antibodies extends Item {
                   .skip(1)
                   .map(formData::getItemData)
                   .filter(not(ItemData::isEmpty))
-                  .map(labValue -> (DomainResource) createObservation(formData, labValue))
+                  .map(labValue -> (DomainResource) createObservation(mappingContext, formData, labValue))
                   .peek(obs -> observation.addHasMember(new Reference(format("%s/%s", OBSERVATION.toCode(), obs.getId())))));
         })
         .orElseGet(Stream::empty);
   }
 
-  private Observation createObservation(FormData formData, ItemData labValue) {
+  private Observation createObservation(MappingContext mappingContext, FormData formData, ItemData labValue) {
     var labValueName = labValue.getItemOID();
 
     var generalCoding = formData.getItemData(labValueName + "_code");
@@ -123,7 +124,7 @@ public class SARSCoV2Antibodies extends Item {
 
     var usableCodings = !loincCoding.isEmpty() ? createLabCodings(loincCoding) : createCodings(generalCoding);
 
-    var identifier = createIdentifier(OBSERVATION, generalCoding).setType(OBI).setAssigner(getOrganizationReference());
+    var identifier = createIdentifier(OBSERVATION, generalCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference());
 
     return (Observation) new Observation()
         .addIdentifier(identifier)
@@ -132,7 +133,7 @@ public class SARSCoV2Antibodies extends Item {
         .addCategory(LABORATORY.copy().addCoding(createCoding(LOINC, "26436-6", "Laboratory studies (set)")))
         .setValue(value)
         .setCode(new CodeableConcept().setCoding(usableCodings).setText(labValueName)) // TODO Add parameter name as text!!!
-        .setId(sha256Hex(identifier.getSystem() + identifier.getValue())) // This really needs to be and stay here!!!
+        .setId(createId(identifier)) // This really needs to be and stay here!!!
         .setMeta(createMeta(PROFILES.get(removeStart(labValueName, "sarsco_v2_covid19_"))));
   }
 
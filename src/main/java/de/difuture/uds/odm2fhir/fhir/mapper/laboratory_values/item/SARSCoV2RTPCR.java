@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.laboratory_values.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -36,16 +37,16 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class SARSCoV2RTPCR extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var dateCoding = formData.getItemData("labor_datum");
     var generalCoding = formData.getItemData("sarsco_v2rtpcr_code", "1");
     var answerCoding = formData.getItemData("sarsco_v2rtpcr");
     var loincCoding = formData.getItemData("sarsco_v2rtpcr_loinc");
 
-    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(generalCoding, loincCoding, answerCoding, dateCoding));
+    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(mappingContext, generalCoding, loincCoding, answerCoding, dateCoding));
   }
 
-  private Observation createObservation(ItemData generalCoding, ItemData loincCoding, ItemData answerCoding, ItemData dateCoding) {
+  private Observation createObservation(MappingContext mappingContext, ItemData generalCoding, ItemData loincCoding, ItemData answerCoding, ItemData dateCoding) {
     var valueCodeableConcept = new CodeableConcept();
     for (var coding : createCodings(answerCoding)) {
       switch (coding.getCode()) { //add coding.display and codeableConcept.text
@@ -69,7 +70,7 @@ public class SARSCoV2RTPCR extends Item {
 
     return valueCodeableConcept.isEmpty() ? new Observation() :
         (Observation) new Observation()
-            .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI).setAssigner(getOrganizationReference()))
+            .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
             .setStatus(FINAL)
             .setEffective(createDateTimeType(dateCoding))
             .addCategory(LABORATORY.copy().addCoding(createCoding(LOINC, "26436-6", "Laboratory studies (set)")))
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.medication.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -43,7 +44,7 @@ import static java.util.function.Predicate.not;
 
 public class COVID19Therapy extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var itemGroupData = formData.getItemGroupData("medikation.covid19therapie_antipyretika");
     var generalPresence = formData.getItemData("covid19therapie");
     var dateCoding = formData.getItemData("medikation_datum");
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.medication.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -35,7 +36,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.MEDICATIONSTATEMEN
 
 public class Immunoglobulins extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("immunglobuline");
     var generalCoding = formData.getItemData("immunglobuline_code", "1");
     var dateCoding = formData.getItemData("medikation_datum");
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.onset_of_illness.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -35,7 +36,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 
 public class StageAtDiagnosis extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("erkrankungsphase_zum_zeitpunkt_der_diagnose");
     var generalCoding = formData.getItemData("erkrankungsphase_zum_zeitpunkt_der_diagnose_code", "1");
 
@@ -45,12 +46,12 @@ public class StageAtDiagnosis extends Item {
   private Condition createCondition(ItemData generalCoding, ItemData answerCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, generalCoding))
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "394807007", "Infectious diseases (specialty) (qualifier value)")))
-        .setClinicalStatus(ACTIVE)
+        .setClinicalStatus(ACTIVE.copy())
         .setCode(createCodeableConcept(createCoding(SNOMED_CT, "840539006",
             "Disease caused by Severe acute respiratory syndrome coronavirus 2 (disorder)")))
-        .setVerificationStatus(CONFIRMED)
+        .setVerificationStatus(CONFIRMED.copy())
         .setMeta(createMeta(DIAGNOSIS_COVID_19));
 
     var summaryCodeableConcept = createCodeableConcept(answerCoding);
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.outcome_at_discharge.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -36,7 +37,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.CONDITION;
 
 public class RespiratoryOutcome extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("respiratorisches_outcome");
     var generalCoding = formData.getItemData("respiratorisches_outcome_code", "1");
 
@@ -46,19 +47,19 @@ public class RespiratoryOutcome extends Item {
   private Condition createCondition(ItemData generalCoding, ItemData answerCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, generalCoding))
-        .setClinicalStatus(ACTIVE)
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setClinicalStatus(ACTIVE.copy())
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(createCoding(SNOMED_CT, "404989005", "Ventilation status (observable entity)")))
         .setCode(createCodeableConcept(generalCoding))
-        .setVerificationStatus(UNCONFIRMED)
+        .setVerificationStatus(UNCONFIRMED.copy())
         .setMeta(createMeta(DEPENDENCE_ON_VENTILATOR));
 
     if (contains(answerCoding.getValue(), "410605003")) {
-      condition.setVerificationStatus(CONFIRMED);
+      condition.setVerificationStatus(CONFIRMED.copy());
     }
 
     if (contains(answerCoding.getValue(), "410594000")) {
-      condition.setVerificationStatus(REFUTED);
+      condition.setVerificationStatus(REFUTED.copy());
     }
 
     return condition;
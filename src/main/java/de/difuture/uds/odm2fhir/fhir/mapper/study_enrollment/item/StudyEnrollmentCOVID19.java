@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.study_enrollment.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -35,18 +36,18 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class StudyEnrollmentCOVID19 extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("covid19_aufnahme");
 
-    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(answerCoding));
+    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(mappingContext, answerCoding));
   }
 
-  private Observation createObservation(ItemData answerCoding) {
+  private Observation createObservation(MappingContext mappingContext, ItemData answerCoding) {
     var observation = (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, answerCoding).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, answerCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(SURVEY)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(SURVEY.copy())
         .setCode(createCodeableConcept(createCoding(ECRF_PARAMETER_CODES, "02", "Study inclusion due to Covid-19"))
             .setText("Confirmed Covid-19 diagnosis as main reason for enrolment in the study"))
         .setMeta(createMeta(STUDY_INCLUSION_COVID_19));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.symptoms.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -44,7 +45,7 @@ public class SymptomConditions extends Item {
                                                        "husten", "kurzatmigkeit_dyspnoe", "uebelkeit", "fieber",
                                                        "kopfschmerzen", "andere_symptome");
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var generalSymptomCoding = formData.getItemData("symptome_code", "1");
 
     return !"1".equals(formData.getItemData("symptome").getValue()) ? Stream.empty() :
@@ -58,8 +59,8 @@ public class SymptomConditions extends Item {
   private Stream<DomainResource> createConditions(FormData formData, ItemData generalSymptomCoding, ItemData specificCoding) {
     var condition = (Condition) new Condition()
         .addIdentifier(createIdentifier(CONDITION, specificCoding))
-        .setClinicalStatus(ACTIVE)
-        .setRecordedDateElement(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setClinicalStatus(ACTIVE.copy())
+        .setRecordedDateElement(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .addCategory(createCodeableConcept(generalSymptomCoding))
         .setSeverity(createCodeableConcept(formData.getItemData(specificCoding.getItemOID() + "_schweregrad")))
         .setMeta(createMeta(SYMPTOMS_COVID_19));
@@ -69,9 +70,9 @@ public class SymptomConditions extends Item {
     var codeCodeableConcept = new CodeableConcept();
     for (var coding : specificCodings) {
       switch (coding.getCode()) {
-        case "410605003" -> condition.setClinicalStatus(ACTIVE).setVerificationStatus(CONFIRMED); //PRESENT
-        case "410594000" -> condition.setVerificationStatus(REFUTED); //ABSENT
-        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN); //UNKNOWN
+        case "410605003" -> condition.setClinicalStatus(ACTIVE.copy()).setVerificationStatus(CONFIRMED.copy()); //PRESENT
+        case "410594000" -> condition.setVerificationStatus(REFUTED.copy()); //ABSENT
+        case "261665006" -> condition.addModifierExtension(DATA_PRESENCE_UNKNOWN.copy()); //UNKNOWN
         case "74964007" -> { //Answer = Sonstige/Other
           codeCodeableConcept.addCoding(coding.setDisplay("Other (qualifier value)"));
           if (!formData.getItemData("symptome_andere_symptome_textfeld").isEmpty()) {
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.therapy.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -36,7 +37,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.PROCEDURE;
 
 public class ECMO extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("ecmotherapie");
     var generalCoding = formData.getItemData("ecmotherapie_code", "1");
 
@@ -46,7 +47,7 @@ public class ECMO extends Item {
   private Procedure createProcedure(ItemData generalCoding, ItemData answerCoding) {
     var procedure = (Procedure) new Procedure()
         .addIdentifier(createIdentifier(PROCEDURE, generalCoding))
-        .setPerformed(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
+        .setPerformed(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
         .setCategory(createCodeableConcept(createCoding(SNOMED_CT, "277132007", "Therapeutic procedure (procedure)")))
         .setCode(createCodeableConcept(generalCoding).setText("ECMO"))
         .setMeta(createMeta(EXTRACORPOREAL_MEMBRANE_OXYGENATION));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.therapy.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -35,7 +36,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class PatientInICU extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("liegt_der_patient_auf_der_intensivstationq");
 
     return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(answerCoding));
@@ -45,8 +46,8 @@ public class PatientInICU extends Item {
     return (Observation) new Observation()
         .addIdentifier(createIdentifier(OBSERVATION, answerCoding))
         .setStatus(FINAL)
-        .setEffective(UNKNOWN_DATE_TIME) // TODO Set actual DateTime value
-        .addCategory(SURVEY)
+        .setEffective(UNKNOWN_DATE_TIME.copy()) // TODO Set actual DateTime value
+        .addCategory(SURVEY.copy())
         .setCode(createCodeableConcept(createCoding(LOINC, "95420-6", "Whether the patient was admitted to intensive care unit (ICU) for condition of interest")))
         .setValue(createCodeableConcept(answerCoding))
         .setMeta(createMeta(PATIENT_IN_ICU));
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.vital_signs.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -38,7 +39,7 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class BloodPressure extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var systolicValue = formData.getItemData("blutdruck_systolisch");
     var systolicCoding = formData.getItemData("blutdruck_systolisch_code", "1");
     var diastolicValue = formData.getItemData("blutdruck_diastolisch");
@@ -46,30 +47,30 @@ public class BloodPressure extends Item {
     var dateCoding = formData.getItemData("vitalparameter_datum");
 
     return systolicValue.isEmpty() && diastolicValue.isEmpty() ? Stream.empty() :
-        Stream.of(createObservation(systolicValue, systolicCoding, diastolicValue, diastolicCoding, dateCoding));
+        Stream.of(createObservation(mappingContext, systolicValue, systolicCoding, diastolicValue, diastolicCoding, dateCoding));
   }
 
-  private Observation createObservation(ItemData systolicValue, ItemData systolicCoding,
+  private Observation createObservation(MappingContext mappingContext, ItemData systolicValue, ItemData systolicCoding,
                                         ItemData diastolicValue, ItemData diastolicCoding, ItemData dateCoding) {
     return (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, systolicCoding).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, systolicCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
         .setEffective(createDateTimeType(dateCoding))
         .setCode(createCodeableConcept(
             createCoding(LOINC, "85354-9", "Blood pressure panel with all children optional"),
             createCoding(SNOMED_CT, "75367002", "Blood pressure (observable entity)"))
             .setText("Blood pressure"))
-        .addCategory(VITAL_SIGNS)
+        .addCategory(VITAL_SIGNS.copy())
         .addComponent(Optional.of(createQuantity(systolicValue, "mm[Hg]", "mmHg"))
                               .map(quantity -> new ObservationComponentComponent()
                 .setCode(createCodeableConcept(systolicCoding).setText("Systolic blood pressure"))
                 .setValue(quantity)
-                .setDataAbsentReason(quantity.isEmpty() ? UNKNOWN : null)).get())
+                .setDataAbsentReason(quantity.isEmpty() ? UNKNOWN.copy() : null)).get())
         .addComponent(Optional.of(createQuantity(diastolicValue, "mm[Hg]", "mmHg"))
             .map(quantity -> new ObservationComponentComponent()
                 .setCode(createCodeableConcept(diastolicCoding).setText("Diastolic blood pressure"))
                 .setValue(quantity)
-                .setDataAbsentReason(quantity.isEmpty() ? UNKNOWN : null)).get())
+                .setDataAbsentReason(quantity.isEmpty() ? UNKNOWN.copy() : null)).get())
         .setMeta(createMeta(BLOOD_PRESSURE));
   }
 
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.mapper.vital_signs.item;
  */
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+import de.difuture.uds.odm2fhir.fhir.mapper.MappingContext;
 import de.difuture.uds.odm2fhir.odm.model.FormData;
 import de.difuture.uds.odm2fhir.odm.model.ItemData;
 
@@ -34,20 +35,20 @@ import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.OBSERVATION;
 
 public class BodyTemperature extends Item {
 
-  protected Stream<DomainResource> map(FormData formData) {
+  protected Stream<DomainResource> map(MappingContext mappingContext, FormData formData) {
     var answerCoding = formData.getItemData("korpertemperatur");
     var generalCoding = formData.getItemData("korpertemperatur_code", "1");
     var dateCoding = formData.getItemData("vitalparameter_datum");
 
-    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(generalCoding, answerCoding, dateCoding));
+    return answerCoding.isEmpty() ? Stream.empty() : Stream.of(createObservation(mappingContext, generalCoding, answerCoding, dateCoding));
   }
 
-  private Observation createObservation(ItemData generalCoding, ItemData answerCoding, ItemData dateCoding) {
+  private Observation createObservation(MappingContext mappingContext, ItemData generalCoding, ItemData answerCoding, ItemData dateCoding) {
     return (Observation) new Observation()
-        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI).setAssigner(getOrganizationReference()))
+        .addIdentifier(createIdentifier(OBSERVATION, generalCoding).setType(OBI.copy()).setAssigner(mappingContext.organizationReference()))
         .setStatus(FINAL)
         .setEffective(createDateTimeType(dateCoding))
-        .addCategory(VITAL_SIGNS)
+        .addCategory(VITAL_SIGNS.copy())
         .setCode(createCodeableConcept(generalCoding).setText("Body temperature"))
         .setValue(createQuantity(answerCoding, "Cel", "°C"))
         .setMeta(createMeta(BODY_TEMPERATURE));
@@ -0,0 +1,323 @@
+package de.difuture.uds.odm2fhir.fhir.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport.CodeValidationResult;
+import ca.uhn.fhir.context.support.IValidationSupport.IssueSeverity;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.server.exceptions.MethodNotAllowedException;
+import ca.uhn.fhir.rest.server.exceptions.NotImplementedOperationException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport;
+import org.hl7.fhir.instance.model.api.IBaseParameters;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import static org.hl7.fhir.r4.model.Bundle.BundleType.BATCH;
+import static org.hl7.fhir.r4.model.Bundle.HTTPVerb.POST;
+
+import static ca.uhn.fhir.context.support.DefaultProfileValidationSupport.getConformanceResourceUrl;
+import static ca.uhn.fhir.util.ParametersUtil.getNamedParameterValuesAsString;
+
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+// Caches the results of all remote code validations (i.e. '$validate-code' calls) for the given number of days,
+// evicting the least recently used first and - if a file is given - keeping them for the next runs
+@Slf4j
+class CachingRemoteTerminologyServiceValidationSupport extends RemoteTerminologyServiceValidationSupport {
+
+  private static final int MAX_BATCH_SIZE = 500;
+
+  private final String baseUrl;
+
+  private final long timeToLive;
+
+  private final Path file;
+
+  private final Map<String, CachedResult> cachedResults;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder batches = new LongAdder();
+
+  private final LongAdder batchedCodes = new LongAdder();
+
+  private final List<Object> clientInterceptors = new CopyOnWriteArrayList<>();
+
+  // Created on the first batch (i.e. after all interceptors have been added) and reused by all following batches
+  private IGenericClient client;
+
+  private final Map<String, Boolean> supportedCodeSystems = new ConcurrentHashMap<>();
+
+  // Disabled once the server rejects batches, leaving all codes to be validated one by one
+  private volatile boolean batchesSupported = true;
+
+  CachingRemoteTerminologyServiceValidationSupport(FhirContext fhirContext, String baseUrl, int maxSize, int days, Path file) {
+    super(fhirContext, baseUrl);
+
+    this.baseUrl = baseUrl;
+    this.timeToLive = DAYS.toMillis(days);
+    this.file = file;
+
+    cachedResults = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+        return size() > maxSize;
+      }
+    });
+
+    if (file != null && exists(file)) {
+      read();
+    }
+  }
+
+  @Override
+  protected CodeValidationResult invokeRemoteValidateCode(String codeSystem, String code, String display,
+                                                          String valueSetUrl, IBaseResource valueSet) {
+    if (isBlank(code)) {
+      return super.invokeRemoteValidateCode(codeSystem, code, display, valueSetUrl, valueSet);
+    }
+
+    var key = key(codeSystem, code, display, valueSetUrl != null || valueSet == null ? valueSetUrl :
+                                                 getConformanceResourceUrl(getFhirContext(), valueSet));
+
+    var cachedResult = cachedResults.get(key);
+    if (cachedResult != null && !cachedResult.isExpired(timeToLive)) {
+      hits.increment();
+      return cachedResult.toCodeValidationResult();
+    }
+
+    misses.increment();
+    var codeValidationResult = super.invokeRemoteValidateCode(codeSystem, code, display, valueSetUrl, valueSet);
+    cachedResults.put(key, CachedResult.of(codeValidationResult));
+
+    return codeValidationResult;
+  }
+
+  @Override
+  public synchronized void addClientInterceptor(Object clientInterceptor) {
+    super.addClientInterceptor(clientInterceptor);
+    clientInterceptors.add(clientInterceptor);
+    if (client != null) {
+      client.registerInterceptor(clientInterceptor);
+    }
+  }
+
+  // Validates the codes of all given codings against their code systems in batches (each of up to MAX_BATCH_SIZE
+  // '$validate-code' operations) instead of one request per code during the validation - as the validator asks either
+  // with or without display, both are validated and only codes of code systems supported by the server are included
+  void validateCodes(Collection<Coding> codings) {
+    if (!batchesSupported) {
+      return;
+    }
+
+    var codeValidations = new LinkedHashMap<String, CodeValidation>();
+    codings.forEach(coding -> {
+      var codeSystem = coding.hasVersion() ? coding.getSystem() + "|" + coding.getVersion() : coding.getSystem();
+      if (isNotBlank(coding.getCode()) && isNotBlank(codeSystem) && isCodeSystemSupported(codeSystem)) {
+        for (var display : isNotBlank(coding.getDisplay()) ? new String[] {null, coding.getDisplay()} : new String[] {null}) {
+          var key = key(codeSystem, coding.getCode(), display, null);
+          var cachedResult = cachedResults.get(key);
+          if (cachedResult == null || cachedResult.isExpired(timeToLive)) {
+            codeValidations.putIfAbsent(key, new CodeValidation(key, codeSystem, coding.getCode(), display));
+          }
+        }
+      }
+    });
+
+    var pendingCodeValidations = new ArrayList<>(codeValidations.values());
+    for (var i = 0; i < pendingCodeValidations.size() && batchesSupported; i += MAX_BATCH_SIZE) {
+      validateCodes(pendingCodeValidations.subList(i, min(i + MAX_BATCH_SIZE, pendingCodeValidations.size())));
+    }
+  }
+
+  private void validateCodes(List<CodeValidation> codeValidations) {
+    var bundle = new Bundle().setType(BATCH);
+    codeValidations.forEach(codeValidation ->
+        bundle.addEntry()
+              .setResource((Parameters) buildValidateCodeInputParameters(codeValidation.codeSystem(), codeValidation.code(),
+                                                                         codeValidation.display(), null, null))
+              .getRequest().setMethod(POST).setUrl("CodeSystem/$validate-code"));
+
+    try {
+      var responseBundle = getClient().transaction().withBundle(bundle).execute();
+      batches.increment();
+
+      // NOTE Failed operations (i.e. without output parameters) are left to be validated one by one
+      for (var i = 0; i < codeValidations.size() && i < responseBundle.getEntry().size(); i++) {
+        if (responseBundle.getEntry().get(i).getResource() instanceof Parameters parameters) {
+          var codeValidation = codeValidations.get(i);
+          cachedResults.put(codeValidation.key(), CachedResult.of(toCodeValidationResult(codeValidation.code(), parameters)));
+          batchedCodes.increment();
+        }
+      }
+    } catch (MethodNotAllowedException | NotImplementedOperationException | ResourceNotFoundException exception) {
+      batchesSupported = false;
+      log.warn("Batches not supported by '{}' - validating codes one by one ({})", baseUrl, exception.getMessage());
+    } catch (RuntimeException runtimeException) {
+      // NOTE Only the codes of this batch are left to be validated one by one
+      log.warn("Batch of {} codes failed at '{}' - validating these one by one ({})",
+               codeValidations.size(), baseUrl, runtimeException.getMessage());
+    }
+  }
+
+  private boolean isCodeSystemSupported(String codeSystem) {
+    return supportedCodeSystems.computeIfAbsent(codeSystem, key -> {
+      try {
+        return isCodeSystemSupported(new ValidationSupportContext(this), codeSystem);
+      } catch (RuntimeException runtimeException) {
+        return false;
+      }
+    });
+  }
+
+  private synchronized IGenericClient getClient() {
+    if (client == null) {
+      client = getFhirContext().newRestfulGenericClient(baseUrl);
+      clientInterceptors.forEach(client::registerInterceptor);
+    }
+    return client;
+  }
+
+  // Same as the remote validation of a single code
+  private CodeValidationResult toCodeValidationResult(String code, IBaseParameters parameters) {
+    var results = getNamedParameterValuesAsString(getFhirContext(), parameters, "result");
+    if (results.size() != 1 || isBlank(results.get(0))) {
+      return null;
+    }
+
+    var codeValidationResult = new CodeValidationResult();
+    if ("true".equalsIgnoreCase(results.get(0))) {
+      codeValidationResult.setCode(code);
+      getNamedParameterValuesAsString(getFhirContext(), parameters, "display").stream().findFirst()
+                                                                             .ifPresent(codeValidationResult::setDisplay);
+    } else {
+      codeValidationResult.setSeverity(IssueSeverity.ERROR);
+      getNamedParameterValuesAsString(getFhirContext(), parameters, "message").stream().findFirst()
+                                                                             .ifPresent(codeValidationResult::setMessage);
+    }
+    return codeValidationResult;
+  }
+
+  // NOTE The code system includes its version (if any) and the value set is only set for validations against it
+  private static String key(String codeSystem, String code, String display, String valueSetUrl) {
+    return String.join("|", defaultString(codeSystem), defaultString(code), defaultString(display), defaultString(valueSetUrl));
+  }
+
+  void close() {
+    log.info("{} code validations answered from cache, {} codes validated by '{}' in {} batches and {} one by one",
+             hits.sum(), batchedCodes.sum(), baseUrl, batches.sum(), misses.sum());
+
+    if (file != null) {
+      write();
+    }
+  }
+
+  private void read() {
+    try {
+      var persistedResults = new ObjectMapper().readValue(file.toFile(), PersistedResults.class);
+      if (baseUrl.equals(persistedResults.baseUrl())) {
+        persistedResults.cachedResults().forEach((key, cachedResult) -> {
+          if (!cachedResult.isExpired(timeToLive)) {
+            cachedResults.put(key, cachedResult);
+          }
+        });
+        log.info("{} code validation results loaded from '{}'", cachedResults.size(), file);
+      } else {
+        log.info("Code validation results in '{}' of other terminology server - discarded", file);
+      }
+    } catch (IOException ioException) {
+      log.warn("Code validation results in '{}' not readable - discarded", file, ioException);
+    }
+  }
+
+  // Written to a temporary file first to always keep intact results in place
+  private void write() {
+    var writtenFile = file.resolveSibling(file.getFileName() + ".written");
+
+    try {
+      synchronized (cachedResults) {
+        cachedResults.values().removeIf(cachedResult -> cachedResult.isExpired(timeToLive));
+        new ObjectMapper().writeValue(writtenFile.toFile(), new PersistedResults(baseUrl, cachedResults));
+      }
+      move(writtenFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+      log.info("{} code validation results written to '{}'", cachedResults.size(), file);
+    } catch (IOException ioException) {
+      log.warn("Code validation results not writable to '{}'", file, ioException);
+    }
+  }
+
+  private record CodeValidation(String key, String codeSystem, String code, String display) {}
+
+  private record PersistedResults(String baseUrl, Map<String, CachedResult> cachedResults) {}
+
+  // Empty for missing results, as remote results contain either the validated code or the severity of the failure
+  private record CachedResult(String code, String display, IssueSeverity severity, String message, long validated) {
+
+    static CachedResult of(CodeValidationResult codeValidationResult) {
+      return codeValidationResult == null ? new CachedResult(null, null, null, null, currentTimeMillis()) :
+          new CachedResult(codeValidationResult.getCode(), codeValidationResult.getDisplay(),
+                           codeValidationResult.getSeverity(), codeValidationResult.getMessage(), currentTimeMillis());
+    }
+
+    boolean isExpired(long timeToLive) {
+      return currentTimeMillis() - validated > timeToLive;
+    }
+
+    CodeValidationResult toCodeValidationResult() {
+      return code == null && severity == null ? null :
+          new CodeValidationResult().setCode(code).setDisplay(display).setSeverity(severity).setMessage(message);
+    }
+
+  }
+
+}
@@ -20,22 +20,39 @@ package de.difuture.uds.odm2fhir.fhir.util;
 
 import org.hl7.fhir.r4.model.codesystems.ResourceTypes;
 
+import org.hl7.fhir.r4.model.Identifier;
+
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static de.difuture.uds.odm2fhir.util.EnvironmentProvider.ENVIRONMENT;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
+import static java.lang.String.valueOf;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 @Slf4j
 public class IdentifierHelper {
 
   private static String DEFAULT_ASSIGNER = "Ein-Fiktives-Krankenhaus";
   private static String DEFAULT_BASE_URL = "https://ein.fiktives.krankenhaus/fhir/NamingSystem/";
 
-  private static Map<String,String> mapping = new HashMap<>();
+  private static Map<String,String> mapping = new ConcurrentHashMap<>();
+
+  // Digests are reset by digest() and thus reusable by their thread for all hashes
+  private static final ThreadLocal<MessageDigest> SHA_256_DIGEST = ThreadLocal.withInitial(DigestUtils::getSha256Digest);
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(ISO_8859_1);
+
+  // Hashes of values not changing during a run (e.g. the assigner) which are otherwise rehashed for every subject
+  private static final Map<String, String> runConstantHashes = new ConcurrentHashMap<>();
 
   private IdentifierHelper() {}
 
@@ -48,6 +65,41 @@ public class IdentifierHelper {
                     DEFAULT_BASE_URL + resourceType.toCode().toLowerCase() + "Id");
   }
 
+  // Same as sha256Hex(value) without allocating a new digest and hex encoder per call
+  public static String hash(String value) {
+    var messageDigest = SHA_256_DIGEST.get();
+    messageDigest.update(valueOf(value).getBytes(UTF_8));
+    return encodeHex(messageDigest.digest());
+  }
+
+  // Same as sha256Hex(system + value) without concatenating both
+  public static String hash(String system, String value) {
+    var messageDigest = SHA_256_DIGEST.get();
+    messageDigest.update(valueOf(system).getBytes(UTF_8));
+    messageDigest.update(valueOf(value).getBytes(UTF_8));
+    return encodeHex(messageDigest.digest());
+  }
+
+  public static String hashRunConstant(String value) {
+    return runConstantHashes.computeIfAbsent(value, IdentifierHelper::hash);
+  }
+
+  public static String createId(Identifier identifier) {
+    return hash(identifier.getSystem(), identifier.getValue());
+  }
+
+  private static String encodeHex(byte[] bytes) {
+    var hex = new byte[bytes.length * 2];
+
+    for (int i = 0; i < bytes.length; i++) {
+      hex[2 * i] = HEX_DIGITS[(bytes[i] & 0xf0) >>> 4];
+      hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+    }
+
+    // Latin-1 to directly become a compact string
+    return new String(hex, ISO_8859_1);
+  }
+
   private static String getValue(String property, String defaultValue) {
     var value = mapping.get(property);
 
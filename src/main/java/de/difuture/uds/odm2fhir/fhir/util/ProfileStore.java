@@ -0,0 +1,193 @@
+package de.difuture.uds.odm2fhir.fhir.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import ca.uhn.fhir.parser.IParser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CanonicalType;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.utilities.npm.NpmPackage;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
+import static org.apache.commons.codec.digest.DigestUtils.updateDigest;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
+import static org.apache.commons.lang3.function.Failable.asFunction;
+
+import static org.hl7.fhir.r4.model.Bundle.BundleType.COLLECTION;
+
+import static ca.uhn.fhir.context.FhirContext.forR4Cached;
+import static ca.uhn.fhir.util.VersionUtil.getVersion;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// Provides the conformance resources of the profile packages restricted to the structure definitions (transitively)
+// referenced by the mapped profiles - once their snapshots are generated, they are kept as one compact bundle tagged
+// with the checksum of the packages, so later starts neither unpack the packages nor generate any snapshots again
+@Slf4j
+class ProfileStore {
+
+  private final List<byte[]> packages = new ArrayList<>();
+
+  private final String checksum;
+
+  private final IParser jsonParser;
+
+  private final Path file;
+
+  private boolean stored;
+
+  ProfileStore(InputStreamSource[] profiles, IParser jsonParser, Path file) throws IOException {
+    this.jsonParser = jsonParser;
+    this.file = file;
+
+    var messageDigest = getSha256Digest();
+    updateDigest(messageDigest, getVersion());
+    for (var profile : profiles) {
+      try (var inputStream = profile.getInputStream()) {
+        var bytes = inputStream.readAllBytes();
+        updateDigest(messageDigest, bytes);
+        packages.add(bytes);
+      }
+    }
+    referencedUrls().forEach(url -> updateDigest(messageDigest, url));
+    checksum = encodeHexString(messageDigest.digest());
+  }
+
+  String getChecksum() {
+    return checksum;
+  }
+
+  // Whether the resources were read from the stored bundle, i.e. with all snapshots already generated
+  boolean isStored() {
+    return stored;
+  }
+
+  List<IBaseResource> read() throws IOException {
+    if (file != null && exists(file)) {
+      try (var inputStreamReader = new InputStreamReader(new GZIPInputStream(newInputStream(file)), UTF_8)) {
+        var bundle = forR4Cached().newJsonParser().parseResource(Bundle.class, inputStreamReader);
+        if (checksum.equals(bundle.getIdentifier().getValue())) {
+          stored = true;
+          log.info("{} conformance resources read from '{}'", bundle.getEntry().size(), file);
+          return bundle.getEntry().stream().map(entry -> (IBaseResource) entry.getResource()).toList();
+        }
+        log.info("Conformance resources in '{}' outdated - reading profile packages", file);
+      } catch (IOException | RuntimeException exception) {
+        log.warn("Conformance resources in '{}' not readable - reading profile packages", file, exception);
+      }
+    }
+
+    return referenced(packages.stream()
+                              .map(asFunction(bytes -> NpmPackage.fromPackage(new ByteArrayInputStream(bytes))))
+                              .flatMap(asFunction(npmPackage -> npmPackage.list("package").stream()
+                                                                          .map(asFunction(npmPackage::loadResource))))
+                              .map(jsonParser::parseResource)
+                              .toList());
+  }
+
+  // Written to a temporary file first to always keep an intact bundle in place
+  void write(List<IBaseResource> resources) throws IOException {
+    var bundle = new Bundle().setType(COLLECTION);
+    bundle.getIdentifier().setValue(checksum);
+    resources.forEach(resource -> bundle.addEntry().setResource((Resource) resource));
+
+    var writtenFile = file.resolveSibling(file.getFileName() + ".written");
+    try (var outputStreamWriter = new OutputStreamWriter(new GZIPOutputStream(newOutputStream(writtenFile)), UTF_8)) {
+      forR4Cached().newJsonParser().encodeResourceToWriter(bundle, outputStreamWriter);
+    }
+    move(writtenFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+
+    log.info("{} conformance resources written to '{}'", resources.size(), file);
+  }
+
+  private static Stream<String> referencedUrls() {
+    return Stream.concat(Stream.of(NUMStructureDefinition.values()).map(NUMStructureDefinition::getUrl),
+                         Stream.of(CommonStructureDefinition.values()).map(CommonStructureDefinition::getUrl));
+  }
+
+  // All other conformance resources (e.g. value sets and code systems) are kept as they are only fetched when needed
+  private static List<IBaseResource> referenced(List<IBaseResource> resources) {
+    var structureDefinitions = new HashMap<String, List<StructureDefinition>>();
+    resources.forEach(resource -> {
+      if (resource instanceof StructureDefinition structureDefinition) {
+        structureDefinitions.computeIfAbsent(structureDefinition.getUrl(), url -> new ArrayList<>()).add(structureDefinition);
+      }
+    });
+
+    var referencedUrls = new HashSet<String>();
+    var pendingUrls = new ArrayDeque<>(referencedUrls().toList());
+    while (!pendingUrls.isEmpty()) {
+      var url = substringBefore(pendingUrls.pop(), "|");
+      if (referencedUrls.add(url)) {
+        structureDefinitions.getOrDefault(url, List.of()).forEach(structureDefinition -> {
+          if (structureDefinition.hasBaseDefinition()) {
+            pendingUrls.push(structureDefinition.getBaseDefinition());
+          }
+          Stream.concat(structureDefinition.getDifferential().getElement().stream(),
+                        structureDefinition.getSnapshot().getElement().stream())
+                .flatMap(elementDefinition -> elementDefinition.getType().stream())
+                .flatMap(typeRefComponent -> Stream.concat(typeRefComponent.getProfile().stream(),
+                                                           typeRefComponent.getTargetProfile().stream()))
+                .map(CanonicalType::getValue)
+                .filter(Objects::nonNull)
+                .forEach(pendingUrls::push);
+        });
+      }
+    }
+
+    var referencedResources = resources.stream()
+        .filter(resource -> !(resource instanceof StructureDefinition structureDefinition) ||
+                            referencedUrls.contains(structureDefinition.getUrl()))
+        .toList();
+
+    log.info("{} of {} conformance resources read from profile packages", referencedResources.size(), resources.size());
+
+    return referencedResources;
+  }
+
+}
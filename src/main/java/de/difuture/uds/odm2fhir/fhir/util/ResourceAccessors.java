@@ -0,0 +1,101 @@
+package de.difuture.uds.odm2fhir.fhir.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.hl7.fhir.r4.model.Condition;
+import org.hl7.fhir.r4.model.Consent;
+import org.hl7.fhir.r4.model.DiagnosticReport;
+import org.hl7.fhir.r4.model.DomainResource;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Immunization;
+import org.hl7.fhir.r4.model.MedicationStatement;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Procedure;
+import org.hl7.fhir.r4.model.Reference;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Accessors of the mapped resource types' elements not shared via DomainResource - resolved once instead of by
+// reflection for every resource
+public class ResourceAccessors {
+
+  private ResourceAccessors() {}
+
+  private static final Map<Class<? extends DomainResource>, ResourceAccessor> RESOURCE_ACCESSORS = Map.ofEntries(
+      entry(Condition.class, Condition::getIdentifierFirstRep, Condition::setSubject, Condition::setEncounter),
+      entry(Consent.class, Consent::getIdentifierFirstRep, Consent::setPatient, null),
+      entry(DiagnosticReport.class, DiagnosticReport::getIdentifierFirstRep, DiagnosticReport::setSubject, DiagnosticReport::setEncounter),
+      entry(Encounter.class, Encounter::getIdentifierFirstRep, Encounter::setSubject, null),
+      entry(Immunization.class, Immunization::getIdentifierFirstRep, Immunization::setPatient, Immunization::setEncounter),
+      entry(MedicationStatement.class, MedicationStatement::getIdentifierFirstRep, MedicationStatement::setSubject, null),
+      entry(Observation.class, Observation::getIdentifierFirstRep, Observation::setSubject, Observation::setEncounter),
+      entry(Organization.class, Organization::getIdentifierFirstRep, null, null),
+      entry(Patient.class, Patient::getIdentifierFirstRep, null, null),
+      entry(Procedure.class, Procedure::getIdentifierFirstRep, Procedure::setSubject, Procedure::setEncounter));
+
+  public static Identifier getIdentifierFirstRep(DomainResource domainResource) {
+    return getResourceAccessor(domainResource).identifierGetter().apply(domainResource);
+  }
+
+  // Patients and organizations are not assigned to a patient
+  public static void setPatient(DomainResource domainResource, Reference patientReference) {
+    var patientSetter = getResourceAccessor(domainResource).patientSetter();
+    if (patientSetter != null) {
+      patientSetter.accept(domainResource, patientReference);
+    }
+  }
+
+  // Consents and medication statements (besides patients, organizations and encounters) have no encounter
+  public static void setEncounter(DomainResource domainResource, Reference encounterReference) {
+    var encounterSetter = getResourceAccessor(domainResource).encounterSetter();
+    if (encounterSetter != null) {
+      encounterSetter.accept(domainResource, encounterReference);
+    }
+  }
+
+  private static ResourceAccessor getResourceAccessor(DomainResource domainResource) {
+    var resourceAccessor = RESOURCE_ACCESSORS.get(domainResource.getClass());
+
+    if (resourceAccessor == null) {
+      throw new IllegalArgumentException("No accessors for resource type '" + domainResource.fhirType() + "' registered");
+    }
+
+    return resourceAccessor;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends DomainResource> Entry<Class<? extends DomainResource>, ResourceAccessor> entry(
+      Class<T> type, Function<T, Identifier> identifierGetter,
+      BiConsumer<T, Reference> patientSetter, BiConsumer<T, Reference> encounterSetter) {
+    return Map.entry(type, new ResourceAccessor((Function<DomainResource, Identifier>) identifierGetter,
+                                                (BiConsumer<DomainResource, Reference>) patientSetter,
+                                                (BiConsumer<DomainResource, Reference>) encounterSetter));
+  }
+
+  private record ResourceAccessor(Function<DomainResource, Identifier> identifierGetter,
+                                  BiConsumer<DomainResource, Reference> patientSetter,
+                                  BiConsumer<DomainResource, Reference> encounterSetter) {}
+
+}
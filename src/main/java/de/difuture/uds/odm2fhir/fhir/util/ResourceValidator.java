@@ -20,44 +20,65 @@ package de.difuture.uds.odm2fhir.fhir.util;
 
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport.IssueSeverity;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.StrictErrorHandler;
 import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.SingleValidationMessage;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.hl7.fhir.common.hapi.validation.support.CachingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTerminologyService;
 import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
-import org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.UnknownCodeSystemWarningValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.DomainResource;
-import org.hl7.fhir.utilities.npm.NpmPackage;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StructureDefinition;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.URI;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.ICD_10_GM;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.LOINC;
 import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.SNOMED_CT;
-import static de.difuture.uds.odm2fhir.util.HTTPHelper.HTTP_CLIENT_BUILDER;
+import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.hash;
+import static de.difuture.uds.odm2fhir.util.HTTPHelper.getHTTPClient;
 import static de.difuture.uds.odm2fhir.util.HTTPHelper.createAuthInterceptor;
 
+import static org.apache.commons.lang3.StringUtils.contains;
 import static org.apache.commons.lang3.StringUtils.containsAny;
-import static org.apache.commons.lang3.function.Failable.asFunction;
+import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
+import static org.apache.commons.lang3.exception.ExceptionUtils.rethrow;
 
 import static org.springframework.util.CollectionUtils.isEmpty;
 
@@ -65,8 +86,17 @@ import static ca.uhn.fhir.context.FhirContext.forR4Cached;
 import static ca.uhn.fhir.validation.ResultSeverityEnum.ERROR;
 import static ca.uhn.fhir.validation.ResultSeverityEnum.WARNING;
 
-import static java.util.Comparator.comparing;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isWritable;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.synchronizedMap;
 import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.DAYS;
 
 @ConditionalOnExpression("${fhir.validation.enabled:false}")
 @Slf4j
@@ -79,6 +109,15 @@ public class ResourceValidator {
   @Value("${fhir.validation.codeerrors.ignored:true}")
   private boolean validationCodeerrorsIgnored;
 
+  @Value("${fhir.validation.threads:0}")
+  private int validationThreads;
+
+  @Value("${fhir.validation.cache.size:10000}")
+  private int validationCacheSize;
+
+  @Value("${odm.cache.folder.path:}")
+  private Path cacheFolderPath;
+
   @Value("classpath:fhir/profiles/*.tgz")
   private Resource[] profiles;
 
@@ -100,8 +139,31 @@ public class ResourceValidator {
   @Value("${fhir.terminologyserver.oauth2.client.secret:}")
   private String terminologyserverOauth2ClientSecret;
 
+  @Value("${fhir.terminologyserver.cache.size:100000}")
+  private int terminologyserverCacheSize;
+
+  @Value("${fhir.terminologyserver.cache.days:7}")
+  private int terminologyserverCacheDays;
+
   private FhirValidator fhirValidator;
 
+  // Validating in the calling thread if not set
+  private ExecutorService executorService;
+
+  // Validation messages by digest of the validated resources (see digest), evicting the least recently used first
+  private Map<String, ValidationResult> validationResults;
+
+  // NOTE Results depending on remote code validations expire like these (see CachingRemoteTerminologyServiceValidationSupport)
+  private long validationResultsTimeToLive = Long.MAX_VALUE;
+
+  private Path validationResultsFile;
+
+  private CachingRemoteTerminologyServiceValidationSupport remoteTerminologyServiceValidationSupport;
+
+  private String validationResultsFingerprint;
+
+  private static final String MASK = "masked";
+
   private static final IParser JSON_PARSER = forR4Cached().newJsonParser().setPrettyPrint(true);
 
   @PostConstruct
@@ -112,28 +174,57 @@ public class ResourceValidator {
       JSON_PARSER.setParserErrorHandler(new StrictErrorHandler());
     }
 
+    var cacheFolderWritable = cacheFolderPath != null && isWritable(cacheFolderPath);
+
+    var profileStore = new ProfileStore(profiles, JSON_PARSER,
+                                        cacheFolderWritable ? cacheFolderPath.resolve("validation-profiles") : null);
+    var conformanceResources = profileStore.read();
+
     var prePopulatedValidationSupport = new PrePopulatedValidationSupport(forR4Cached());
-    Arrays.stream(profiles)
-          .map(asFunction(Resource::getInputStream))
-          .map(asFunction(NpmPackage::fromPackage))
-          .flatMap(asFunction(npmPackage -> npmPackage.list("package").stream()
-                                                      .map(asFunction(npmPackage::loadResource))))
-          .map(JSON_PARSER::parseResource)
-          .forEach(prePopulatedValidationSupport::addResource);
+    conformanceResources.forEach(prePopulatedValidationSupport::addResource);
+
+    var snapshotGeneratingValidationSupport = new SnapshotGeneratingValidationSupport(forR4Cached()) {
+      // NOTE Serialized as concurrently generating snapshots of profiles sharing base definitions fails (generated
+      // snapshots are cached, so this only affects the first validations against each profile)
+      @Override
+      public synchronized IBaseResource generateSnapshot(ValidationSupportContext validationSupportContext,
+                                                         IBaseResource input, String url, String webUrl, String profileName) {
+        return super.generateSnapshot(validationSupportContext, input, url, webUrl, profileName);
+      }
+    };
 
     var validationSupportChain = new ValidationSupportChain(
         prePopulatedValidationSupport,
         new DefaultProfileValidationSupport(forR4Cached()),
         new CommonCodeSystemsTerminologyService(forR4Cached()),
         new InMemoryTerminologyServerValidationSupport(forR4Cached()),
-        new SnapshotGeneratingValidationSupport(forR4Cached()));
+        snapshotGeneratingValidationSupport);
+
+    // NOTE Generated up front as the validator keeps the snapshots it generates itself for 10 seconds only
+    if (!profileStore.isStored()) {
+      var validationSupportContext = new ValidationSupportContext(validationSupportChain);
+      conformanceResources.forEach(resource -> {
+        if (resource instanceof StructureDefinition structureDefinition && !structureDefinition.hasSnapshot()) {
+          try {
+            snapshotGeneratingValidationSupport.generateSnapshot(validationSupportContext, structureDefinition, "", null, "");
+          } catch (RuntimeException exception) {
+            log.warn("Snapshot of '{}' not generated: {}", structureDefinition.getUrl(), exception.getMessage());
+          }
+        }
+      });
+      if (cacheFolderWritable) {
+        profileStore.write(conformanceResources);
+      }
+    }
 
     if (terminologyserverUrl.isAbsolute()) {
-      forR4Cached().getRestfulClientFactory().setHttpClient(HTTP_CLIENT_BUILDER.build());
-      var remoteTerminologyServiceValidationSupport = new RemoteTerminologyServiceValidationSupport(forR4Cached(),
-                                                                                                    terminologyserverUrl.toString());
+      forR4Cached().getRestfulClientFactory().setHttpClient(getHTTPClient("fhir.terminologyserver"));
+      remoteTerminologyServiceValidationSupport = new CachingRemoteTerminologyServiceValidationSupport(
+          forR4Cached(), terminologyserverUrl.toString(), terminologyserverCacheSize, terminologyserverCacheDays,
+          cacheFolderWritable ? cacheFolderPath.resolve("terminology-results") : null);
       remoteTerminologyServiceValidationSupport.addClientInterceptor(
-          createAuthInterceptor(terminologyserverBasicauthUsername, terminologyserverBasicauthPassword,
+          createAuthInterceptor("fhir.terminologyserver",
+                                terminologyserverBasicauthUsername, terminologyserverBasicauthPassword,
                                 terminologyserverOauth2TokenURL, terminologyserverOauth2ClientId, terminologyserverOauth2ClientSecret));
       validationSupportChain.addValidationSupport(remoteTerminologyServiceValidationSupport);
     }
@@ -144,12 +235,240 @@ public class ResourceValidator {
 
     fhirValidator = forR4Cached().newValidator()
                                  .registerValidatorModule(new FhirInstanceValidator(new CachingValidationSupport(validationSupportChain)));
+
+    // NOTE The validator (and its module) is thread-safe apart from the snapshot generation and thus shared by all threads
+    var threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+    if (threads > 1) {
+      var threadFactory = new CustomizableThreadFactory("resource-validation-");
+      threadFactory.setDaemon(true);
+      executorService = newFixedThreadPool(threads, threadFactory);
+    }
+
+    log.info("Validating resources with {} threads", threads);
+
+    if (validationCacheSize > 0) {
+      if (remoteTerminologyServiceValidationSupport != null) {
+        validationResultsTimeToLive = DAYS.toMillis(terminologyserverCacheDays);
+      }
+
+      validationResults = synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+          return size() > validationCacheSize;
+        }
+      });
+
+      if (cacheFolderWritable) {
+        validationResultsFile = cacheFolderPath.resolve("validation-results");
+        // NOTE Persisted results are only reused as long as nothing affecting the validation has changed
+        validationResultsFingerprint = hash(String.join("|", profileStore.getChecksum(), terminologyserverUrl.toString(),
+                                                        String.valueOf(validationCodeerrorsIgnored)));
+        if (exists(validationResultsFile)) {
+          readValidationResults();
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  private void destroy() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+
+    if (validationResultsFile != null) {
+      writeValidationResults();
+    }
+
+    if (remoteTerminologyServiceValidationSupport != null) {
+      remoteTerminologyServiceValidationSupport.close();
+    }
+  }
+
+  private void readValidationResults() {
+    try {
+      var persistedValidationResults = new ObjectMapper().readValue(validationResultsFile.toFile(),
+                                                                    PersistedValidationResults.class);
+      if (validationResultsFingerprint.equals(persistedValidationResults.fingerprint())) {
+        persistedValidationResults.validationResults().forEach((digest, validationResult) -> {
+          if (!validationResult.isExpired(validationResultsTimeToLive)) {
+            validationResults.put(digest, new ValidationResult(List.copyOf(validationResult.messages()),
+                                                               validationResult.validated()));
+          }
+        });
+        log.info("{} validation results loaded from '{}' ({} expired)", validationResults.size(), validationResultsFile,
+                 persistedValidationResults.validationResults().size() - validationResults.size());
+      } else {
+        log.info("Validation results in '{}' outdated - discarded", validationResultsFile);
+      }
+    } catch (IOException ioException) {
+      log.warn("Validation results in '{}' not readable - discarded", validationResultsFile, ioException);
+    }
+  }
+
+  // Written to a temporary file first to always keep intact results in place
+  private void writeValidationResults() {
+    var writtenFile = validationResultsFile.resolveSibling(validationResultsFile.getFileName() + ".written");
+
+    try {
+      synchronized (validationResults) {
+        new ObjectMapper().writeValue(writtenFile.toFile(),
+                                      new PersistedValidationResults(validationResultsFingerprint, validationResults));
+      }
+      move(writtenFile, validationResultsFile, ATOMIC_MOVE, REPLACE_EXISTING);
+      log.info("{} validation results written to '{}'", validationResults.size(), validationResultsFile);
+    } catch (IOException ioException) {
+      log.warn("Validation results not writable to '{}'", validationResultsFile, ioException);
+    }
+  }
+
+  // Ids, identifier values and referenced ids are masked as resources differing only in them validate alike
+  private static String digest(DomainResource domainResource) {
+    var maskedDomainResource = domainResource.copy();
+    maskedDomainResource.setId((String) null);
+
+    var fhirTerser = forR4Cached().newTerser();
+    fhirTerser.getAllPopulatedChildElementsOfType(maskedDomainResource, Identifier.class).forEach(identifier -> {
+      if (identifier.hasValue()) {
+        identifier.setValue(MASK);
+      }
+    });
+    fhirTerser.getAllPopulatedChildElementsOfType(maskedDomainResource, Reference.class).forEach(reference -> {
+      if (contains(reference.getReference(), '/')) {
+        reference.setReference(substringBeforeLast(reference.getReference(), "/") + "/" + MASK);
+      }
+    });
+
+    return hash(forR4Cached().newJsonParser().encodeResourceToString(maskedDomainResource));
+  }
+
+  // Returns the valid resources in their given order
+  public List<DomainResource> validate(List<DomainResource> domainResources) {
+    var digests = digest(domainResources);
+
+    // The codes of all resources to be validated against the profiles are validated by the terminology server at once
+    if (remoteTerminologyServiceValidationSupport != null) {
+      var fhirTerser = forR4Cached().newTerser();
+      var codings = new ArrayList<Coding>();
+      var collectedDigests = new HashSet<String>();
+      for (var i = 0; i < domainResources.size(); i++) {
+        var digest = digests.get(i);
+        if (getMessages(digest) == null && (digest == null || collectedDigests.add(digest))) {
+          codings.addAll(fhirTerser.getAllPopulatedChildElementsOfType(domainResources.get(i), Coding.class));
+        }
+      }
+      remoteTerminologyServiceValidationSupport.validateCodes(codings);
+    }
+
+    if (executorService == null || domainResources.size() < 2) {
+      return IntStream.range(0, domainResources.size())
+                      .filter(i -> isValid(domainResources.get(i), getOrValidate(domainResources.get(i), digests.get(i))))
+                      .mapToObj(domainResources::get)
+                      .toList();
+    }
+
+    // NOTE Resources of the same shape within the bundle share the validation of the first one instead of all being
+    // validated at the same time (as none of them is cached yet)
+    var futures = new ArrayList<Future<List<SingleValidationMessage>>>(domainResources.size());
+    var futuresByDigest = new HashMap<String, Future<List<SingleValidationMessage>>>();
+    for (var i = 0; i < domainResources.size(); i++) {
+      var domainResource = domainResources.get(i);
+      var digest = digests.get(i);
+      var future = digest != null ? futuresByDigest.get(digest) : null;
+      if (future == null) {
+        future = executorService.submit(() -> getOrValidate(domainResource, digest));
+        if (digest != null) {
+          futuresByDigest.put(digest, future);
+        }
+      }
+      futures.add(future);
+    }
+
+    var messages = getAll(futures);
+
+    return IntStream.range(0, domainResources.size())
+                    .filter(i -> isValid(domainResources.get(i), messages.get(i)))
+                    .mapToObj(domainResources::get)
+                    .toList();
   }
 
   public boolean validate(DomainResource domainResource) {
-    var validationResult = fhirValidator.validateWithResult(domainResource);
+    var digest = validationResults != null ? digest(domainResource) : null;
+    return isValid(domainResource, getOrValidate(domainResource, digest));
+  }
+
+  // Digested concurrently (if possible) as copying, masking and encoding all resources of a bundle adds up
+  private List<String> digest(List<DomainResource> domainResources) {
+    if (validationResults == null) {
+      return nCopies(domainResources.size(), null);
+    }
+
+    if (executorService == null || domainResources.size() < 2) {
+      return domainResources.stream().map(ResourceValidator::digest).toList();
+    }
+
+    return getAll(domainResources.stream()
+                                 .map(domainResource -> executorService.submit(() -> digest(domainResource)))
+                                 .toList());
+  }
+
+  private static <T> List<T> getAll(List<Future<T>> futures) {
+    var results = new ArrayList<T>(futures.size());
+
+    try {
+      for (var future : futures) {
+        results.add(future.get());
+      }
+    } catch (ExecutionException executionException) {
+      futures.forEach(future -> future.cancel(true));
+      return rethrow(executionException.getCause());
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      futures.forEach(future -> future.cancel(true));
+      return rethrow(interruptedException);
+    }
+
+    return results;
+  }
+
+  // Resources of a known shape are not validated again but only get the messages of the first one replayed
+  private List<SingleValidationMessage> getOrValidate(DomainResource domainResource, String digest) {
+    var messages = getMessages(digest);
+
+    if (messages == null) {
+      messages = validateAgainstProfiles(domainResource);
+      if (digest != null) {
+        validationResults.put(digest, new ValidationResult(messages, currentTimeMillis()));
+      }
+    }
 
-    var messages = validationResult.getMessages().stream()
+    return messages;
+  }
+
+  private boolean isValid(DomainResource domainResource, List<SingleValidationMessage> messages) {
+    messages.forEach(message -> {
+      switch (message.getSeverity()) {
+        case FATAL, ERROR -> log.error(message.toString());
+        case WARNING -> log.warn(message.toString());
+        case INFORMATION -> log.info(message.toString());
+      }
+    });
+
+    if (!isEmpty(messages)) {
+      log.debug(forR4Cached().newJsonParser().setPrettyPrint(true).encodeResourceToString(domainResource));
+    }
+
+    return messages.stream().map(SingleValidationMessage::getSeverity).noneMatch(ERROR::equals);
+  }
+
+  private List<SingleValidationMessage> getMessages(String digest) {
+    var validationResult = digest != null ? validationResults.get(digest) : null;
+    return validationResult != null && !validationResult.isExpired(validationResultsTimeToLive) ?
+        validationResult.messages() : null;
+  }
+
+  private List<SingleValidationMessage> validateAgainstProfiles(DomainResource domainResource) {
+    return fhirValidator.validateWithResult(domainResource).getMessages().stream()
         .peek(message -> {
           if (message.getSeverity() == ERROR) {
             if (validationCodeerrorsIgnored && !terminologyserverUrl.isAbsolute() &&
@@ -158,21 +477,17 @@ public class ResourceValidator {
             }
           }
         })
-        .peek(message -> {
-          switch (message.getSeverity()) {
-            case FATAL, ERROR -> log.error(message.toString());
-            case WARNING -> log.warn(message.toString());
-            case INFORMATION -> log.info(message.toString());
-          }
-        })
-        .sorted(comparing(SingleValidationMessage::getSeverity))
         .toList();
+  }
 
-    if (!isEmpty(messages)) {
-      log.debug(JSON_PARSER.encodeResourceToString(domainResource));
+  private record PersistedValidationResults(String fingerprint, Map<String, ValidationResult> validationResults) {}
+
+  private record ValidationResult(List<SingleValidationMessage> messages, long validated) {
+
+    boolean isExpired(long timeToLive) {
+      return currentTimeMillis() - validated > timeToLive;
     }
 
-    return messages.stream().map(SingleValidationMessage::getSeverity).noneMatch(ERROR::equals);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package de.difuture.uds.odm2fhir.fhir.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Type;
+import org.hl7.fhir.r4.model.codesystems.ConditionClinical;
+import org.hl7.fhir.r4.model.codesystems.ConditionVerStatus;
+import org.hl7.fhir.r4.model.codesystems.ConsentCategory;
+import org.hl7.fhir.r4.model.codesystems.ConsentScope;
+import org.hl7.fhir.r4.model.codesystems.DataAbsentReason;
+import org.hl7.fhir.r4.model.codesystems.ObservationCategory;
+import org.hl7.fhir.r4.model.codesystems.V3ActCode;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.ISO_3166_COUNTRY_CODES;
+import static de.difuture.uds.odm2fhir.fhir.util.CommonCodeSystem.ISO_3166_GERMAN_STATE_CODES;
+import static de.difuture.uds.odm2fhir.fhir.util.NUMCodeSystem.SOFA_SCORE;
+
+import static org.hl7.fhir.r4.model.codesystems.V3ActCode.IMP;
+
+import static java.util.Locale.ENGLISH;
+
+// Canonical codings built once at startup - only handed out as copies to be safely shared by all mappers and threads
+public class TerminologyRegistry {
+
+  private TerminologyRegistry() {}
+
+  private static final Map<Enum<?>, Coding> ENUM_CODINGS = new HashMap<>();
+
+  private static final Map<String, Map<String, String>> DISPLAYS = new HashMap<>();
+
+  private static final Map<String, Map<String, String>> DEFINITIONS = new HashMap<>();
+
+  static {
+    // NOTE Explicit accessors as HAPI enums do not implement a common interface
+    register(ConditionClinical.values(), ConditionClinical::getSystem, ConditionClinical::toCode, ConditionClinical::getDisplay);
+    register(ConditionVerStatus.values(), ConditionVerStatus::getSystem, ConditionVerStatus::toCode, ConditionVerStatus::getDisplay);
+    register(ConsentCategory.values(), ConsentCategory::getSystem, ConsentCategory::toCode, ConsentCategory::getDisplay);
+    register(ConsentScope.values(), ConsentScope::getSystem, ConsentScope::toCode, ConsentScope::getDisplay);
+    register(DataAbsentReason.values(), DataAbsentReason::getSystem, DataAbsentReason::toCode, DataAbsentReason::getDisplay);
+    register(ObservationCategory.values(), ObservationCategory::getSystem, ObservationCategory::toCode, ObservationCategory::getDisplay);
+    register(new V3ActCode[] { IMP }, V3ActCode::getSystem, V3ActCode::toCode, V3ActCode::getDisplay);
+
+    for (var country : Locale.getISOCountries()) {
+      register(ISO_3166_COUNTRY_CODES.getUrl(), country, new Locale("", country).getDisplayCountry(ENGLISH));
+    }
+
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-BW", "Baden-Württemberg");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-BY", "Bayern");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-BE", "Berlin");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-BB", "Brandenburg");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-HB", "Bremen");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-HH", "Hamburg");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-HE", "Hessen");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-MV", "Mecklenburg-Vorpommern");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-NI", "Niedersachsen");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-NW", "Nordrhein-Westfalen");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-RP", "Rheinland-Pfalz");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-SL", "Saarland");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-SN", "Sachsen");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-ST", "Sachsen-Anhalt");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-SH", "Schleswig-Holstein");
+    register(ISO_3166_GERMAN_STATE_CODES.getUrl(), "DE-TH", "Thüringen");
+
+    register(SOFA_SCORE.getUrl(), "resp", "Respiratory system", "SOFA Respiratory system scoring category");
+    register(SOFA_SCORE.getUrl(), "resp0", "Respiratory system SOFA score 0", "PaO2/FiO2 [mmHg (kPa)] ≥ 400 (53.3)");
+    register(SOFA_SCORE.getUrl(), "resp1", "Respiratory system SOFA score 1", "PaO2/FiO2 [mmHg (kPa)] < 400 (53.3)");
+    register(SOFA_SCORE.getUrl(), "resp2", "Respiratory system SOFA score 2", "PaO2/FiO2 [mmHg (kPa)] < 300 (40)");
+    register(SOFA_SCORE.getUrl(), "resp3", "Respiratory system SOFA score 3",
+             "PaO2/FiO2 [mmHg (kPa)] < 200 (26.7) and mechanically ventilated");
+    register(SOFA_SCORE.getUrl(), "resp4", "Respiratory system SOFA score 4",
+             "PaO2/FiO2 [mmHg (kPa)] < 100 (13.3) and mechanically ventilated");
+
+    register(SOFA_SCORE.getUrl(), "ns", "Nervous system", "SOFA Nervous system scoring category");
+    register(SOFA_SCORE.getUrl(), "ns0", "Nervous system SOFA score 0", "Glasgow Coma Scale (GCS) 15");
+    register(SOFA_SCORE.getUrl(), "ns1", "Nervous system SOFA score 1", "Glasgow Coma Scale (GCS) 13-14");
+    register(SOFA_SCORE.getUrl(), "ns2", "Nervous system SOFA score 2", "Glasgow Coma Scale (GCS) 10-12");
+    register(SOFA_SCORE.getUrl(), "ns3", "Nervous system SOFA score 3", "Glasgow Coma Scale (GCS) 6-9");
+    register(SOFA_SCORE.getUrl(), "ns4", "Nervous system SOFA score 4", "Glasgow Coma Scale (GCS) < 6");
+
+    register(SOFA_SCORE.getUrl(), "cvs", "Cardiovascular system", "SOFA Cardiovascular system scoring category");
+    register(SOFA_SCORE.getUrl(), "cvs0", "Cardiovascular system SOFA score 0",
+             "Mean arterial pressure (definitions) ≥ 70 mmHg");
+    register(SOFA_SCORE.getUrl(), "cvs1", "Cardiovascular system SOFA score 1",
+             "Mean arterial pressure (definitions) < 70 mmHg");
+    register(SOFA_SCORE.getUrl(), "cvs2", "Cardiovascular system SOFA score 2",
+             "Administration of dopamine ≤ 5 ug/kg/min or dobutamine (any dose)");
+    register(SOFA_SCORE.getUrl(), "cvs3", "Cardiovascular system SOFA score 3",
+             "Administration of dopamine > 5 ug/kg/min OR epinephrine ≤ 0.1 ug/kg/min OR norepinephrine ≤ 0.1 ug/kg/min");
+    register(SOFA_SCORE.getUrl(), "cvs4", "Cardiovascular system SOFA score 4",
+             "Administration of dopamine > 15 ug/kg/min OR epinephrine > 0.1 ug/kg/min OR norepinephrine > 0.1 ug/kg/min");
+
+    register(SOFA_SCORE.getUrl(), "liv", "Liver", "SOFA Liver scoring category");
+    register(SOFA_SCORE.getUrl(), "liv0", "Liver SOFA score 0", "Bilirubin (mg/dl) [umol/L] < 1.2 [< 20]");
+    register(SOFA_SCORE.getUrl(), "liv1", "Liver SOFA score 1", "Bilirubin (mg/dl) [umol/L] 1.2-1.9 [20-32]");
+    register(SOFA_SCORE.getUrl(), "liv2", "Liver SOFA score 2", "Bilirubin (mg/dl) [umol/L] 2.0-5.9 [33-101]");
+    register(SOFA_SCORE.getUrl(), "liv3", "Liver SOFA score 3", "Bilirubin (mg/dl) [umol/L] 6.0-11.9 [102-204]");
+    register(SOFA_SCORE.getUrl(), "liv4", "Liver SOFA score 4", "Bilirubin (mg/dl) [umol/L] > 12.0 [> 204]");
+
+    register(SOFA_SCORE.getUrl(), "coa", "Coagulation", "SOFA Coagulation scoring category");
+    register(SOFA_SCORE.getUrl(), "coa0", "Coagulation SOFA score 0", "Platelets×10^3/ul ? 150");
+    register(SOFA_SCORE.getUrl(), "coa1", "Coagulation SOFA score 1", "Platelets×10^3/ul < 150");
+    register(SOFA_SCORE.getUrl(), "coa2", "Coagulation SOFA score 2", "Platelets×10^3/ul < 100");
+    register(SOFA_SCORE.getUrl(), "coa3", "Coagulation SOFA score 3", "Platelets×10^3/ul < 50");
+    register(SOFA_SCORE.getUrl(), "coa4", "Coagulation SOFA score 4", "Platelets×10^3/ul < 20");
+
+    register(SOFA_SCORE.getUrl(), "kid", "Kidneys", "SOFA Kidneys scoring category");
+    register(SOFA_SCORE.getUrl(), "kid0", "Kidneys SOFA score 0",
+             "Creatinine (mg/dl) [umol/L] (or urine output) < 1.2 [< 110]");
+    register(SOFA_SCORE.getUrl(), "kid1", "Kidneys SOFA score 1",
+             "Creatinine (mg/dl) [umol/L] (or urine output) 1.2-1.9 [110-170]");
+    register(SOFA_SCORE.getUrl(), "kid2", "Kidneys SOFA score 2",
+             "Creatinine (mg/dl) [?mol/L] (or urine output) 2.0-3.4 [171-299]");
+    register(SOFA_SCORE.getUrl(), "kid3", "Kidneys SOFA score 3",
+             "Creatinine (mg/dl) [umol/L] (or urine output) 3.5-4.9 [300-440] (or < 500 ml/d)");
+    register(SOFA_SCORE.getUrl(), "kid4", "Kidneys SOFA score 4",
+             "Creatinine (mg/dl) [umol/L] (or urine output) > 5.0 [> 440] (or < 200 ml/d)");
+  }
+
+  private static <E extends Enum<E>> void register(E[] values, Function<E, String> system,
+                                                   Function<E, String> code, Function<E, String> display) {
+    for (var value : values) {
+      if (!"NULL".equals(value.name())) {
+        ENUM_CODINGS.put(value, new Coding(system.apply(value), code.apply(value), display.apply(value)));
+      }
+    }
+  }
+
+  private static void register(String system, String code, String display) {
+    DISPLAYS.computeIfAbsent(system, key -> new HashMap<>()).put(code, display);
+  }
+
+  private static void register(String system, String code, String display, String definition) {
+    register(system, code, display);
+    DEFINITIONS.computeIfAbsent(system, key -> new HashMap<>()).put(code, definition);
+  }
+
+  public static Coding getCoding(Enum<?> value) {
+    var coding = ENUM_CODINGS.get(value);
+
+    if (coding == null) {
+      throw new IllegalArgumentException("No coding registered for '" + value.getClass().getSimpleName() + "." + value + "'");
+    }
+
+    return coding.copy();
+  }
+
+  public static CodeableConcept getCodeableConcept(Enum<?> value) {
+    return new CodeableConcept(getCoding(value));
+  }
+
+  public static String getDisplay(CommonCodeSystem system, String code) {
+    return getDisplay(system.getUrl(), code);
+  }
+
+  public static String getDisplay(NUMCodeSystem system, String code) {
+    return getDisplay(system.getUrl(), code);
+  }
+
+  private static String getDisplay(String system, String code) {
+    return DISPLAYS.getOrDefault(system, Map.of()).get(code);
+  }
+
+  public static String getDefinition(NUMCodeSystem system, String code) {
+    return DEFINITIONS.getOrDefault(system.getUrl(), Map.of()).get(code);
+  }
+
+  public static <T extends Type> Constant<T> createConstant(T value) {
+    return new Constant<>(value);
+  }
+
+  // Shared value only handing out copies as adding them to resources would otherwise link all of them
+  public static final class Constant<T extends Type> {
+
+    private final T value;
+
+    private Constant(T value) {
+      this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T copy() {
+      return (T) value.copy();
+    }
+
+  }
+
+}
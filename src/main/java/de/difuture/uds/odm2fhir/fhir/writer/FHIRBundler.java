@@ -22,11 +22,11 @@ import de.difuture.uds.odm2fhir.fhir.util.ResourceValidator;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.hl7.fhir.r4.model.Base;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryRequestComponent;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.DomainResource;
-import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Meta;
 import org.hl7.fhir.r4.model.Property;
 
@@ -39,6 +39,7 @@ import java.util.stream.Stream;
 
 import static de.difuture.uds.odm2fhir.fhir.util.IdentifierHelper.getIdentifierSystem;
 import static de.difuture.uds.odm2fhir.fhir.util.NUMStructureDefinition.GECCO_BUNDLE;
+import static de.difuture.uds.odm2fhir.fhir.util.ResourceAccessors.getIdentifierFirstRep;
 
 import static org.hl7.fhir.r4.model.Bundle.BundleType.TRANSACTION;
 import static org.hl7.fhir.r4.model.Bundle.HTTPVerb.POST;
@@ -46,9 +47,6 @@ import static org.hl7.fhir.r4.model.Bundle.HTTPVerb.PUT;
 import static org.hl7.fhir.r4.model.codesystems.ResourceTypes.fromCode;
 import static org.hl7.fhir.r4.model.codesystems.SearchModifierCode.IDENTIFIER;
 
-import static org.springframework.util.ReflectionUtils.findMethod;
-import static org.springframework.util.ReflectionUtils.invokeMethod;
-
 import static java.lang.String.format;
 import static java.util.function.Predicate.not;
 
@@ -65,56 +63,56 @@ public class FHIRBundler {
   @Autowired(required = false)
   private ResourceValidator resourceValidator;
 
-  @SuppressWarnings("unchecked")
-  private void removeCodingDisplays(Object object) {
+  private void removeCodingDisplays(Base base) {
     if (codingdisplaysRemoved) {
-      var children = findMethod(object.getClass(), "children");
-
-      if (children != null) {
-        ((List<Property>) invokeMethod(children, object)).stream()
-            .map(Property::getValues)
-            .flatMap(List::stream)
-            .forEach(value -> {
-              if (value instanceof Coding) {
-                ((Coding) value).setDisplay(null);
-              } else {
-                removeCodingDisplays(value);
-              }
-            });
-      }
+      base.children().stream()
+          .map(Property::getValues)
+          .flatMap(List::stream)
+          .forEach(value -> {
+            if (value instanceof Coding) {
+              ((Coding) value).setDisplay(null);
+            } else {
+              removeCodingDisplays(value);
+            }
+          });
     }
   }
 
   public Bundle bundle(Stream<DomainResource> domainResources) {
     var bundle = (Bundle) new Bundle().setType(TRANSACTION).setMeta(new Meta().addProfile(GECCO_BUNDLE.getUrl()));
 
-    domainResources
+    var bundledDomainResources = domainResources
         .filter(not(DomainResource::isEmpty))
         .peek(this::removeCodingDisplays)
-        .filter(domainResource -> resourceValidator == null || resourceValidator.validate(domainResource))
-        .forEach(domainResource -> {
-          var method = PUT;
-
-          var id = domainResource.getId();
-          var fhirType = domainResource.fhirType();
-          var url = format("%s/%s", fhirType, id);
-          var fullUrl = "";
-
-          var ifNoneExist = "";
-
-          if (!updateascreateEnabled) {
-            method = POST;
-            fullUrl = url;
-            url = fhirType;
-            var identifier = ((Identifier) invokeMethod(
-                findMethod(domainResource.getClass(), "getIdentifierFirstRep"), domainResource)).getValue();
-            ifNoneExist = format("%s=%s|%s", IDENTIFIER.toCode(), getIdentifierSystem(fromCode(fhirType)), identifier.replace(" ", "%20"));
-            domainResource.setId("");
-          }
-
-          bundle.addEntry().setResource(domainResource).setFullUrl(fullUrl)
-                .setRequest(new BundleEntryRequestComponent().setMethod(method).setUrl(url).setIfNoneExist(ifNoneExist));
-        });
+        .toList();
+
+    // Validated all at once to validate them in parallel
+    if (resourceValidator != null) {
+      bundledDomainResources = resourceValidator.validate(bundledDomainResources);
+    }
+
+    bundledDomainResources.forEach(domainResource -> {
+      var method = PUT;
+
+      var id = domainResource.getId();
+      var fhirType = domainResource.fhirType();
+      var url = format("%s/%s", fhirType, id);
+      var fullUrl = "";
+
+      var ifNoneExist = "";
+
+      if (!updateascreateEnabled) {
+        method = POST;
+        fullUrl = url;
+        url = fhirType;
+        var identifier = getIdentifierFirstRep(domainResource).getValue();
+        ifNoneExist = format("%s=%s|%s", IDENTIFIER.toCode(), getIdentifierSystem(fromCode(fhirType)), identifier.replace(" ", "%20"));
+        domainResource.setId("");
+      }
+
+      bundle.addEntry().setResource(domainResource).setFullUrl(fullUrl)
+            .setRequest(new BundleEntryRequestComponent().setMethod(method).setUrl(url).setIfNoneExist(ifNoneExist));
+    });
 
     return bundle;
   }
@@ -18,8 +18,6 @@ package de.difuture.uds.odm2fhir.fhir.writer;
  * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-import ca.uhn.fhir.parser.IParser;
-
 import lombok.extern.slf4j.Slf4j;
 
 import org.hl7.fhir.r4.model.Bundle;
@@ -45,8 +43,6 @@ public class FileFHIRBundleWriter implements FHIRBundleWriter {
   @Value("${fhir.folder.path:}")
   private Path folderPath;
 
-  private static final IParser JSON_PARSER = forR4Cached().newJsonParser().setPrettyPrint(true);
-
   @Override
   public void write(Bundle bundle) throws IOException {
     if (folderPath == null) {
@@ -58,7 +54,8 @@ public class FileFHIRBundleWriter implements FHIRBundleWriter {
     BUNDLES_NUMBER.incrementAndGet();
     RESOURCES_NUMBER.addAndGet(bundle.getEntry().size());
 
-    var json = JSON_PARSER.encodeResourceToString(bundle);
+    // NOTE Parsers are not thread-safe, but cheap to create
+    var json = forR4Cached().newJsonParser().setPrettyPrint(true).encodeResourceToString(bundle);
     var patientIdentifier = ((Patient) bundle.getEntryFirstRep().getResource()).getIdentifierFirstRep().getValue();
     writeString(folderPath.resolve(patientIdentifier + ".json"), json);
   }
@@ -19,6 +19,7 @@ package de.difuture.uds.odm2fhir.fhir.writer;
  */
 
 import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.apache.ApacheRestfulClientFactory;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +39,7 @@ import java.io.IOException;
 import java.net.URI;
 
 import static de.difuture.uds.odm2fhir.util.HTTPHelper.createAuthInterceptor;
+import static de.difuture.uds.odm2fhir.util.HTTPHelper.getHTTPClient;
 
 import static ca.uhn.fhir.context.FhirContext.forR4Cached;
 
@@ -64,13 +66,13 @@ public class ServerFHIRBundleWriter implements FHIRBundleWriter {
   @Value("${fhir.server.oauth2.client.secret:}")
   private String oauth2ClientSecret;
 
-  private IGenericClient genericClient;
+  private volatile IGenericClient genericClient;
   private RetryTemplate retryTemplate;
 
-  private void init() throws IOException {
-    genericClient = forR4Cached().getRestfulClientFactory().newGenericClient(url.toString());
-    genericClient.registerInterceptor(
-        createAuthInterceptor(basicauthUsername, basicauthPassword, oauth2TokenURL, oauth2ClientId, oauth2ClientSecret));
+  private synchronized void init() throws IOException {
+    if (genericClient != null) {
+      return;
+    }
 
     var backOffPolicy = new FixedBackOffPolicy();
     backOffPolicy.setBackOffPeriod(10000L);
@@ -84,6 +86,16 @@ public class ServerFHIRBundleWriter implements FHIRBundleWriter {
         log.error("Attempt {} to send bundle failed with error", context.getRetryCount(), throwable);
       }
     });
+
+    // Assigned last as it signals completed initialization to concurrent writers
+    // Own factory as the shared one of the FHIR context may already use the terminology server's client
+    var restfulClientFactory = new ApacheRestfulClientFactory(forR4Cached());
+    restfulClientFactory.setHttpClient(getHTTPClient("fhir.server"));
+    var genericClient = restfulClientFactory.newGenericClient(url.toString());
+    genericClient.registerInterceptor(
+        createAuthInterceptor("fhir.server",
+                              basicauthUsername, basicauthPassword, oauth2TokenURL, oauth2ClientId, oauth2ClientSecret));
+    this.genericClient = genericClient;
   }
 
   @Override
@@ -19,20 +19,28 @@ package de.difuture.uds.odm2fhir.odm.model;
  */
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import lombok.experimental.Accessors;
 
 import org.springframework.util.CollectionUtils;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
-import static org.apache.commons.lang3.StringUtils.equalsAny;
+import static de.difuture.uds.odm2fhir.odm.util.CodeLists.decode;
+
+import static java.util.Collections.unmodifiableMap;
+
+import static lombok.AccessLevel.NONE;
 
 @Data
 @Accessors(chain = true)
@@ -57,15 +65,32 @@ public class FormData {
   @JsonBackReference("subjectData-formData")
   private SubjectData subjectData;
 
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  @JsonIgnore
+  @Getter(NONE)
+  @Setter(NONE)
+  private Indexes indexes;
+
+  // NOTE Copied unmodifiable as the indexes are only reset by this method
+  public FormData setItemGroupData(List<ItemGroupData> itemGroupData) {
+    this.itemGroupData = List.copyOf(itemGroupData);
+    resetIndexes();
+    return this;
+  }
+
+  // Called whenever the items of a group change (see ItemGroupData)
+  void resetIndexes() {
+    indexes = null;
+  }
+
   public boolean isEmpty() {
     return CollectionUtils.isEmpty(itemGroupData);
   }
 
   public ItemGroupData getItemGroupData(String itemGroupOID) {
-    return itemGroupData.stream()
-        .filter(itemGroupData -> equalsAny(itemGroupData.getItemGroupOID(), itemGroupOID))
-        .findFirst()
-        .orElseGet(() -> new ItemGroupData().setItemGroupOID(itemGroupOID));
+    var itemGroupData = getIndexes().itemGroupData().get(itemGroupOID);
+    return itemGroupData != null ? itemGroupData : new ItemGroupData().setItemGroupOID(itemGroupOID);
   }
 
   public ItemData getItemData(String itemOID) {
@@ -73,13 +98,28 @@ public class FormData {
   }
 
   public ItemData getItemData(String itemOID, String defaultValue) {
-    return itemGroupData.stream()
-                        .map(ItemGroupData::getItemData)
-                        .flatMap(List::stream)
-                        .filter(itemData -> equalsAny(itemData.getItemOID(), itemOID))
-                        .findFirst()
-                        .map(itemData -> itemData.setValue(defaultIfBlank(itemData.getValue(), defaultValue)))
-                        .orElseGet(() -> new ItemData().setItemOID(itemOID).setValue(defaultValue));
+    var itemData = getIndexes().itemData().get(itemOID);
+    // Defaults are decoded like the bound values
+    return itemData == null ? new ItemData().setItemOID(itemOID).setValue(decode(itemOID, defaultValue)) :
+           itemData.isEmpty() ? itemData.setValue(decode(itemOID, defaultValue)) : itemData;
   }
 
-}
\ No newline at end of file
+  // Built on first lookup as forms are looked up many times by their mappers, keeping the first occurrence of each OID
+  // as the linear search did before
+  private Indexes getIndexes() {
+    if (indexes == null) {
+      var itemGroupDataIndex = new HashMap<String, ItemGroupData>();
+      var itemDataIndex = new HashMap<String, ItemData>();
+      for (var itemGroupData : itemGroupData) {
+        itemGroupDataIndex.putIfAbsent(itemGroupData.getItemGroupOID(), itemGroupData);
+        itemGroupData.getItemData().forEach(itemData -> itemDataIndex.putIfAbsent(itemData.getItemOID(), itemData));
+      }
+      indexes = new Indexes(unmodifiableMap(itemGroupDataIndex), unmodifiableMap(itemDataIndex));
+    }
+
+    return indexes;
+  }
+
+  private record Indexes(Map<String, ItemGroupData> itemGroupData, Map<String, ItemData> itemData) {}
+
+}
@@ -26,13 +26,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.experimental.Accessors;
 
-import java.util.List;
-
 import static org.apache.commons.lang3.StringUtils.isBlank;
-import static org.apache.commons.lang3.StringUtils.isNumeric;
-import static org.apache.commons.lang3.StringUtils.replaceEach;
-
-import static de.difuture.uds.odm2fhir.util.EnvironmentProvider.ENVIRONMENT;
 
 @Data
 @Accessors(chain = true)
@@ -57,18 +51,4 @@ public class ItemData {
     return new ItemData().setItemOID(itemOID).setValue(value).setItemGroupData(itemGroupData);
   }
 
-  public String getValue() {
-    if (isNumeric(value)) {
-      var codes = ENVIRONMENT.getProperty(itemOID, List.class);
-      if (codes != null) {
-        value = ((String) codes.get(Integer.parseInt(value) - 1));
-      }
-    }
-
-    value = replaceEach(value, new String[]{ "PLUS", "EQUAL", "COLON", "COMMA", "LESSTHAN", "LBRACKET", "RBRACKET" },
-                               new String[]{ "+",    "=",     ":",     ",",     "<",        "{",        "}"        });
-
-    return value;
-  }
-
-}
\ No newline at end of file
+}
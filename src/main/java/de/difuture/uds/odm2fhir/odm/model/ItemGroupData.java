@@ -29,6 +29,7 @@ import lombok.experimental.Accessors;
 
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -49,6 +50,21 @@ public class ItemGroupData {
   @JsonBackReference
   private FormData formData;
 
+  // NOTE Items can only be changed by these methods (the list is stored unmodifiable) to keep the form's indexes valid
+  public ItemGroupData setItemData(List<ItemData> itemData) {
+    this.itemData = List.copyOf(itemData);
+    if (formData != null) {
+      formData.resetIndexes();
+    }
+    return this;
+  }
+
+  public ItemGroupData addItemData(ItemData... itemData) {
+    var extendedItemData = new ArrayList<>(this.itemData);
+    extendedItemData.addAll(List.of(itemData));
+    return setItemData(extendedItemData);
+  }
+
   public boolean isEmpty() {
     return CollectionUtils.isEmpty(itemData);
   }
@@ -0,0 +1,82 @@
+package de.difuture.uds.odm2fhir.odm.processor;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import lombok.extern.slf4j.Slf4j;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+// Adapts the number of patients per export call to the observed time and size per patient, aiming at the targeted
+// time and size per call within the given bounds, and halves it after failed calls (never growing back to the failed
+// chunk size)
+@Slf4j
+class ChunkSizer {
+
+  private final int minChunkSize;
+
+  private int maxChunkSize;
+
+  private final double targetNanos;
+
+  private final double targetBytes;
+
+  private double chunkSize;
+
+  ChunkSizer(int initialChunkSize, int minChunkSize, int maxChunkSize, int targetSeconds, int targetMegabytes) {
+    this.minChunkSize = max(1, minChunkSize);
+    this.maxChunkSize = max(this.minChunkSize, maxChunkSize);
+    targetNanos = SECONDS.toNanos(targetSeconds);
+    targetBytes = targetMegabytes * 1_000_000d;
+
+    chunkSize = limit(initialChunkSize);
+  }
+
+  synchronized int getChunkSize() {
+    return (int) round(chunkSize);
+  }
+
+  synchronized void succeeded(int patients, long nanos, long bytes) {
+    var idealChunkSize = patients * min(targetNanos / max(1, nanos), targetBytes / max(1, bytes));
+
+    // Smoothed and at most doubled to not overreact to single exceptionally small or fast patients
+    update(min(2 * chunkSize, (chunkSize + idealChunkSize) / 2));
+  }
+
+  synchronized void failed(int patients) {
+    maxChunkSize = max(minChunkSize, min(maxChunkSize, patients - 1));
+    update(min(chunkSize, patients) / 2);
+  }
+
+  private void update(double newChunkSize) {
+    var previousChunkSize = getChunkSize();
+    chunkSize = limit(newChunkSize);
+
+    if (getChunkSize() != previousChunkSize) {
+      log.debug("Adapted patients per call from {} to {}", previousChunkSize, getChunkSize());
+    }
+  }
+
+  private double limit(double chunkSize) {
+    return min(maxChunkSize, max(minChunkSize, chunkSize));
+  }
+
+}
@@ -20,18 +20,52 @@ package de.difuture.uds.odm2fhir.odm.processor;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.function.FailableSupplier;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import org.apache.http.client.methods.RequestBuilder;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.stream.Stream;
 
-import static de.difuture.uds.odm2fhir.util.HTTPHelper.HTTP_CLIENT_BUILDER;
+import static de.difuture.uds.odm2fhir.util.HTTPHelper.getHTTPClient;
 
+import static org.apache.commons.io.IOUtils.copyLarge;
+import static org.apache.commons.lang3.StringUtils.startsWith;
+import static org.apache.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.apache.http.HttpHeaders.CONTENT_RANGE;
+import static org.apache.http.HttpHeaders.ETAG;
+import static org.apache.http.HttpHeaders.IF_RANGE;
+import static org.apache.http.HttpHeaders.LAST_MODIFIED;
+import static org.apache.http.HttpHeaders.RANGE;
+import static org.apache.http.HttpStatus.SC_OK;
+import static org.apache.http.HttpStatus.SC_PARTIAL_CONTENT;
 import static org.apache.http.client.methods.RequestBuilder.get;
 
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.readString;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.writeString;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 @ConditionalOnExpression("!'${odm.dis.rest.url:}'.empty")
 @Service
 @Slf4j
@@ -49,17 +83,97 @@ public class DISODMProcessor extends ODMProcessor {
   @Value("${odm.dis.rest.password}")
   private String password;
 
-  public Stream<InputStream> read() throws Exception {
+  @Value("${odm.dis.rest.spool.folder.path:}")
+  private Path spoolFolderPath;
+
+  public Stream<FailableSupplier<InputStream, IOException>> read() throws Exception {
     log.info("Reading ODM via DIS REST at '{}'", url);
 
-    var httpGet = get(url.toURI()).addParameter("studyname", studyname)
-                                  .addParameter("username", username)
-                                  .addParameter("password", password)
-                                  .addParameter("exportformat", "odm")
-                                  .addParameter("sasname", "true")
-                                  .build();
+    var requestBuilder = get(url.toURI()).addParameter("studyname", studyname)
+                                         .addParameter("username", username)
+                                         .addParameter("password", password)
+                                         .addParameter("exportformat", "odm")
+                                         .addParameter("sasname", "true");
+
+    if (spoolFolderPath == null) {
+      return Stream.of(() -> stream(requestBuilder));
+    }
+
+    return Stream.of(() -> spool(requestBuilder));
+  }
+
+  // Streams the export while it is parsed, i.e. keeps the connection open until all subjects have been read
+  private InputStream stream(RequestBuilder requestBuilder) throws IOException {
+    var httpResponse = getHTTPClient("odm.dis.rest").execute(requestBuilder.build());
+
+    var statusLine = httpResponse.getStatusLine();
+    if (statusLine.getStatusCode() != SC_OK) {
+      httpResponse.close();
+      throw new IOException("DIS export failed with '" + statusLine + "'");
+    }
+
+    return httpResponse.getEntity().getContent();
+  }
+
+  // Downloads the export completely before it is parsed to not keep the connection open while mapping - continuing a
+  // previously interrupted download if the export is unchanged according to its validator (strong ETag or date)
+  private InputStream spool(RequestBuilder requestBuilder) throws IOException {
+    createDirectories(spoolFolderPath);
+
+    var spoolFile = spoolFolderPath.resolve(studyname + ".xml");
+    var partFile = spoolFolderPath.resolve(studyname + ".xml.part");
+    var validatorFile = spoolFolderPath.resolve(studyname + ".xml.part.validator");
+
+    var offset = exists(partFile) && exists(validatorFile) ? size(partFile) : 0L;
+
+    if (offset > 0L) {
+      log.info("Resuming DIS export spooled to '{}' at byte {}", partFile, offset);
+      // Requested unencoded as ranges refer to the transferred (and spooled) bytes
+      requestBuilder.addHeader(ACCEPT_ENCODING, "identity")
+                    .addHeader(RANGE, "bytes=" + offset + "-")
+                    .addHeader(IF_RANGE, readString(validatorFile));
+    }
+
+    var start = nanoTime();
+    long bytes;
+
+    try (var httpResponse = getHTTPClient("odm.dis.rest").execute(requestBuilder.build())) {
+      var statusLine = httpResponse.getStatusLine();
+
+      if (statusLine.getStatusCode() == SC_PARTIAL_CONTENT) {
+        var contentRange = httpResponse.getFirstHeader(CONTENT_RANGE);
+        if (contentRange == null || !startsWith(contentRange.getValue(), "bytes " + offset + "-")) {
+          throw new IOException("DIS export resumed with unexpected range '" + contentRange + "'");
+        }
+      } else if (statusLine.getStatusCode() == SC_OK) {
+        offset = 0L;
+
+        var validator = httpResponse.getFirstHeader(ETAG);
+        if (validator == null || startsWith(validator.getValue(), "W/")) {
+          validator = httpResponse.getFirstHeader(LAST_MODIFIED);
+        }
+        if (validator != null) {
+          writeString(validatorFile, validator.getValue());
+        } else {
+          deleteIfExists(validatorFile);
+        }
+      } else {
+        throw new IOException("DIS export failed with '" + statusLine + "'");
+      }
+
+      try (var outputStream = newOutputStream(partFile, CREATE, WRITE, offset == 0L ? TRUNCATE_EXISTING : APPEND)) {
+        bytes = copyLarge(httpResponse.getEntity().getContent(), outputStream);
+      }
+    }
+
+    var seconds = (nanoTime() - start) / 1e9;
+    log.info("DIS export spooled to '{}' with {} bytes in {} s ({} MB/s)", spoolFile, bytes,
+             format("%.1f", seconds), seconds > 0 ? format("%.1f", bytes / 1e6 / seconds) : "-");
+
+    move(partFile, spoolFile, REPLACE_EXISTING);
+    deleteIfExists(validatorFile);
 
-    return Stream.of(HTTP_CLIENT_BUILDER.build().execute(httpGet).getEntity().getContent());
+    return newInputStream(spoolFile, DELETE_ON_CLOSE);
   }
 
 }
\ No newline at end of file
@@ -20,29 +20,365 @@ package de.difuture.uds.odm2fhir.odm.processor;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.lang3.function.FailableSupplier;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.apache.commons.lang3.StringUtils.countMatches;
+import static org.apache.commons.lang3.StringUtils.endsWithIgnoreCase;
+import static org.apache.commons.lang3.StringUtils.indexOfAny;
+import static org.apache.commons.lang3.function.Failable.asConsumer;
+import static org.apache.commons.lang3.function.Failable.asFunction;
 
+import static java.io.File.separatorChar;
+import static java.lang.Math.min;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.FileSystems.getDefault;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.list;
 import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.walk;
+import static java.util.Collections.enumeration;
+import static java.util.Comparator.comparing;
+import static java.util.function.Predicate.not;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.stream.IntStream.range;
 
-@ConditionalOnExpression("!'${odm.file.path:}'.empty and new java.io.File('${odm.file.path}').exists")
+@ConditionalOnExpression("!'${odm.file.path:}'.empty and " +
+                         "(new java.io.File('${odm.file.path}').exists or '${odm.file.path}'.matches('.*[*?{].*'))")
 @Service
 @Slf4j
 public class FileODMProcessor extends ODMProcessor {
 
+  private static final Pattern ODM_FILE_NAME = Pattern.compile(".*\\.(xml|xml\\.gz|zip)", CASE_INSENSITIVE);
+
   @Value("${odm.file.path}")
-  private Path filePath;
+  private String filePath;
+
+  private static final byte[] ODM_START_TAG = "<ODM".getBytes(US_ASCII);
+
+  private static final byte[] SUBJECT_DATA_START_TAG = "<SubjectData".getBytes(US_ASCII);
+
+  private static final byte[] SHARD_CLINICAL_DATA_START_TAG = "<ClinicalData>".getBytes(US_ASCII);
+
+  private static final byte[] SHARD_END_TAGS = "</ClinicalData></ODM>".getBytes(US_ASCII);
+
+  private static final byte[] COMMENT_START = "<!--".getBytes(US_ASCII);
+
+  private static final byte[] COMMENT_END = "-->".getBytes(US_ASCII);
+
+  private static final byte[] CDATA_START = "<![CDATA[".getBytes(US_ASCII);
+
+  private static final byte[] CDATA_END = "]]>".getBytes(US_ASCII);
+
+  private static final byte[] PROCESSING_INSTRUCTION_START = "<?".getBytes(US_ASCII);
+
+  private static final byte[] PROCESSING_INSTRUCTION_END = "?>".getBytes(US_ASCII);
+
+  private static final byte[] DECLARATION_START = "<!".getBytes(US_ASCII);
+
+  private static final int WINDOW_LENGTH = 1 << 24;
+
+  // Longest sequence looked at from a single position (i.e. '<SubjectData' followed by one more byte)
+  private static final int LOOKAHEAD = 16;
+
+  @Value("${odm.file.concurrency:1}")
+  private int concurrency;
 
-  public Stream<InputStream> read() throws Exception {
-    log.info("Reading ODM from file '{}'", filePath);
+  @Value("${odm.file.megabytespershard:0}")
+  private int megabytespershard;
 
-    return Stream.of(newInputStream(filePath));
+  public Stream<FailableSupplier<InputStream, IOException>> read() throws Exception {
+    var files = findFiles();
 
+    log.info("Reading ODM from {} file(s) at '{}'", files.size(), filePath);
+
+    // NOTE ZIP files are closed with the stream as their entries may still be read after their files are streamed
+    var zipFiles = new ArrayList<ZipFile>();
+
+    return files.stream()
+                .flatMap(asFunction(file -> open(file, zipFiles)))
+                .onClose(() -> zipFiles.forEach(asConsumer(ZipFile::close)));
+  }
+
+  @Override
+  protected int getReaderConcurrency() {
+    return concurrency;
+  }
+
+  // Either a single file, all ODM files in a folder or all files matching a glob pattern
+  private List<Path> findFiles() throws IOException {
+    var path = Path.of(filePath);
+
+    if (isDirectory(path)) {
+      try (var files = list(path)) {
+        return files.filter(Files::isRegularFile)
+                    .filter(file -> ODM_FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+      }
+    }
+
+    if (exists(path)) {
+      return List.of(path);
+    }
+
+    var globStart = indexOfAny(filePath, "*?{");
+    if (globStart < 0) {
+      throw new NoSuchFileException(filePath);
+    }
+
+    var folder = Path.of(filePath.substring(0, filePath.lastIndexOf(separatorChar, globStart) + 1));
+    var pathMatcher = getDefault().getPathMatcher("glob:" + filePath);
+    var maxDepth = filePath.contains("**") ? Integer.MAX_VALUE
+                                           : countMatches(filePath.substring(globStart), separatorChar) + 1;
+
+    List<Path> matchingFiles;
+
+    try (var files = walk(folder, maxDepth)) {
+      matchingFiles = files.filter(Files::isRegularFile)
+                           .filter(pathMatcher::matches)
+                           .sorted()
+                           .toList();
+    }
+
+    if (matchingFiles.isEmpty()) {
+      throw new NoSuchFileException(filePath, null, "No files matching");
+    }
+
+    return matchingFiles;
   }
 
-}
\ No newline at end of file
+  private Stream<FailableSupplier<InputStream, IOException>> open(Path file, List<ZipFile> zipFiles)
+      throws IOException {
+    var fileName = file.getFileName().toString();
+
+    if (endsWithIgnoreCase(fileName, ".zip")) {
+      var zipFile = new ZipFile(file.toFile());
+      zipFiles.add(zipFile);
+      log.info("Reading ODM from ZIP file '{}'", file);
+      return zipFile.stream()
+                    .filter(not(ZipEntry::isDirectory))
+                    .filter(zipEntry -> endsWithIgnoreCase(zipEntry.getName(), ".xml"))
+                    .sorted(comparing(ZipEntry::getName))
+                    .map(zipEntry -> () -> zipFile.getInputStream(zipEntry));
+    }
+
+    if (megabytespershard > 0 && !endsWithIgnoreCase(fileName, ".gz") && size(file) > megabytespershard * 1_000_000L) {
+      return shard(file);
+    }
+
+    log.info("Reading ODM from file '{}'", file);
+
+    if (endsWithIgnoreCase(fileName, ".gz")) {
+      return Stream.of(() -> new GZIPInputStream(new BufferedInputStream(newInputStream(file))));
+    }
+
+    return Stream.of(() -> newInputStream(file));
+  }
+
+  // Splits a large (ASCII-compatibly encoded) file at SubjectData start tags found after every given number of bytes,
+  // wrapping each part as a separate ODM to be read concurrently: All but the first part are preceded by the file's
+  // prolog and ODM start tag and an anonymous ClinicalData start tag, all but the last part are followed by end tags
+  private Stream<FailableSupplier<InputStream, IOException>> shard(Path file) throws IOException {
+    var shardSize = megabytespershard * 1_000_000L;
+
+    Boundaries boundaries;
+    byte[] shardStartTags;
+
+    try (var fileChannel = FileChannel.open(file)) {
+      boundaries = findBoundaries(fileChannel, shardSize);
+      if (boundaries.odmStartTagEnd() < 0L || boundaries.odmStartTagEnd() >= WINDOW_LENGTH) {
+        log.warn("No ODM start tag found in '{}' - reading it as a whole", file);
+        return Stream.of(() -> newInputStream(file));
+      }
+
+      var odmStartTagLength = (int) boundaries.odmStartTagEnd() + 1;
+      shardStartTags = new byte[odmStartTagLength + SHARD_CLINICAL_DATA_START_TAG.length];
+      fileChannel.map(READ_ONLY, 0L, odmStartTagLength).get(shardStartTags, 0, odmStartTagLength);
+      System.arraycopy(SHARD_CLINICAL_DATA_START_TAG, 0, shardStartTags, odmStartTagLength,
+                       SHARD_CLINICAL_DATA_START_TAG.length);
+    }
+
+    var shardStarts = boundaries.shardStarts();
+
+    log.info("Reading ODM from file '{}' in {} shard(s)", file, shardStarts.size() - 1);
+
+    return range(0, shardStarts.size() - 1).mapToObj(i -> () -> {
+      var start = shardStarts.get(i);
+      var shard = new ArrayList<InputStream>();
+      if (i > 0) {
+        shard.add(new ByteArrayInputStream(shardStartTags));
+      }
+      // NOTE Streamed from the channel (instead of mapped) as shards may exceed the maximum size of a mapping
+      shard.add(new BoundedInputStream(Channels.newInputStream(FileChannel.open(file).position(start)),
+                                       shardStarts.get(i + 1) - start));
+      if (i < shardStarts.size() - 2) {
+        shard.add(new ByteArrayInputStream(SHARD_END_TAGS));
+      }
+      return new SequenceInputStream(enumeration(shard));
+    });
+  }
+
+  // Scans the file for the end of the ODM start tag and the SubjectData start tags found after every given number of
+  // bytes, skipping comments, CDATA sections, processing instructions, declarations and quoted attribute values (in
+  // which both '<SubjectData' and '>' may occur) - the shard starts include the file's start and end
+  private static Boundaries findBoundaries(FileChannel fileChannel, long shardSize) throws IOException {
+    var fileSize = fileChannel.size();
+
+    var odmStartTagEnd = -1L;
+    var shardStarts = new ArrayList<>(List.of(0L));
+
+    var state = Markup.TEXT;
+    var inODMStartTag = false;
+    byte quote = 0;
+    var declarationDepth = 0;
+
+    ByteBuffer window = null;
+    var windowStart = 0L;
+
+    for (var position = 0L; position < fileSize; position++) {
+      if (window == null ||
+          position - windowStart + LOOKAHEAD > window.limit() && windowStart + window.limit() < fileSize) {
+        windowStart = position;
+        window = fileChannel.map(READ_ONLY, windowStart, min(WINDOW_LENGTH, fileSize - windowStart));
+      }
+
+      var i = (int) (position - windowStart);
+      var b = window.get(i);
+
+      switch (state) {
+        case TEXT -> {
+          if (b == '<') {
+            if (startsWith(window, i, COMMENT_START)) {
+              state = Markup.COMMENT;
+              position += COMMENT_START.length - 1;
+            } else if (startsWith(window, i, CDATA_START)) {
+              state = Markup.CDATA;
+              position += CDATA_START.length - 1;
+            } else if (startsWith(window, i, PROCESSING_INSTRUCTION_START)) {
+              state = Markup.PROCESSING_INSTRUCTION;
+              position += PROCESSING_INSTRUCTION_START.length - 1;
+            } else if (startsWith(window, i, DECLARATION_START)) {
+              state = Markup.DECLARATION;
+              declarationDepth = 0;
+            } else {
+              if (position >= shardStarts.get(shardStarts.size() - 1) + shardSize && position > 0L &&
+                  isStartTag(window, i, SUBJECT_DATA_START_TAG)) {
+                shardStarts.add(position);
+              }
+              inODMStartTag = odmStartTagEnd < 0L && isStartTag(window, i, ODM_START_TAG);
+              state = Markup.TAG;
+            }
+          }
+        }
+        case TAG -> {
+          if (quote != 0) {
+            if (b == quote) {
+              quote = 0;
+            }
+          } else if (b == '"' || b == '\'') {
+            quote = b;
+          } else if (b == '>') {
+            if (inODMStartTag) {
+              odmStartTagEnd = position;
+              inODMStartTag = false;
+            }
+            state = Markup.TEXT;
+          }
+        }
+        case COMMENT -> {
+          if (startsWith(window, i, COMMENT_END)) {
+            state = Markup.TEXT;
+            position += COMMENT_END.length - 1;
+          }
+        }
+        case CDATA -> {
+          if (startsWith(window, i, CDATA_END)) {
+            state = Markup.TEXT;
+            position += CDATA_END.length - 1;
+          }
+        }
+        case PROCESSING_INSTRUCTION -> {
+          if (startsWith(window, i, PROCESSING_INSTRUCTION_END)) {
+            state = Markup.TEXT;
+            position += PROCESSING_INSTRUCTION_END.length - 1;
+          }
+        }
+        case DECLARATION -> {
+          if (quote != 0) {
+            if (b == quote) {
+              quote = 0;
+            }
+          } else if (b == '"' || b == '\'') {
+            quote = b;
+          } else if (b == '[') {
+            declarationDepth++;
+          } else if (b == ']') {
+            declarationDepth--;
+          } else if (b == '>' && declarationDepth == 0) {
+            state = Markup.TEXT;
+          }
+        }
+      }
+    }
+
+    shardStarts.add(fileSize);
+
+    return new Boundaries(odmStartTagEnd, shardStarts);
+  }
+
+  private static boolean startsWith(ByteBuffer byteBuffer, int index, byte[] bytes) {
+    if (index + bytes.length > byteBuffer.limit()) {
+      return false;
+    }
+
+    for (var j = 0; j < bytes.length; j++) {
+      if (byteBuffer.get(index + j) != bytes[j]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // Whether the start tag is followed by whitespace or '>'
+  private static boolean isStartTag(ByteBuffer byteBuffer, int index, byte[] startTag) {
+    if (!startsWith(byteBuffer, index, startTag) || index + startTag.length >= byteBuffer.limit()) {
+      return false;
+    }
+
+    var next = byteBuffer.get(index + startTag.length);
+    return next == ' ' || next == '\t' || next == '\r' || next == '\n' || next == '>';
+  }
+
+  private enum Markup { TEXT, TAG, COMMENT, CDATA, PROCESSING_INSTRUCTION, DECLARATION }
+
+  private record Boundaries(long odmStartTagEnd, List<Long> shardStarts) {}
+
+}
@@ -18,43 +18,55 @@ package de.difuture.uds.odm2fhir.odm.processor;
  * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies.UpperCamelCaseStrategy;
 
 import de.difuture.uds.odm2fhir.fhir.mapper.Subject;
 import de.difuture.uds.odm2fhir.fhir.writer.FHIRBundleWriter;
 import de.difuture.uds.odm2fhir.fhir.writer.FHIRBundler;
-import de.difuture.uds.odm2fhir.odm.model.SubjectData;
+import de.difuture.uds.odm2fhir.odm.processor.SubjectDigestStore.Digest;
+import de.difuture.uds.odm2fhir.odm.util.SubjectDataBinder.ScannedSubjectData;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.function.FailableSupplier;
+
+import org.hl7.fhir.r4.model.Bundle;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
-import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
-import static com.fasterxml.jackson.dataformat.xml.XmlMapper.xmlBuilder;
-
 import static de.difuture.uds.odm2fhir.fhir.writer.FHIRBundleWriter.BUNDLES_NUMBER;
 import static de.difuture.uds.odm2fhir.fhir.writer.FHIRBundleWriter.RESOURCES_NUMBER;
+import static de.difuture.uds.odm2fhir.odm.util.SubjectDataBinder.bind;
+import static de.difuture.uds.odm2fhir.odm.util.SubjectDataBinder.createXMLStreamReader;
+import static de.difuture.uds.odm2fhir.odm.util.SubjectDataBinder.digest;
+import static de.difuture.uds.odm2fhir.odm.util.SubjectDataBinder.scan;
+import static de.difuture.uds.odm2fhir.util.HTTPHelper.logConnectionPoolStats;
 
+import static org.apache.commons.lang3.exception.ExceptionUtils.rethrow;
 import static org.apache.commons.lang3.function.Failable.asConsumer;
 
 import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
 import static java.nio.file.Files.exists;
 import static java.nio.file.Files.isWritable;
 import static java.nio.file.Files.readString;
 import static java.nio.file.Files.writeString;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 
 @Service
 @Slf4j
@@ -70,80 +82,169 @@ public abstract class ODMProcessor {
   @Value("${odm.cache.folder.path:}")
   private Path cacheFolderPath;
 
-  private Map<String,Integer> subjectODMHashes;
+  @Value("${odm.processing.threads:0}")
+  private int processingThreads;
+
+  @Value("${odm.processing.queuesize:0}")
+  private int processingQueuesize;
+
+  @Value("${odm.processing.ordered:false}")
+  private boolean processingOrdered;
+
+  // Shared by all processing threads as the mappers keep the state of each subject in its own mapping context
+  private final Subject subject = new Subject();
+
+  private SubjectDigestStore subjectDigestStore;
 
   LocalDateTime previousRunDateTime;
 
-  boolean initialODMInRun = true;
+  // Creation date time of the earliest ODM read in the current run (by any reader), i.e. of the data changed since
+  private LocalDateTime runDateTime;
 
-  protected abstract Stream<InputStream> read() throws Exception;
+  // NOTE Inputs are only opened when read (by the reader taking them) to not hold all of them open at once
+  protected abstract Stream<FailableSupplier<InputStream, IOException>> read() throws Exception;
+
+  // Number of inputs read at the same time
+  protected int getReaderConcurrency() {
+    return 1;
+  }
 
   public void process() throws Exception {
-    ObjectMapper objectMapper = null;
-    Path subjectODMHashesFile = null;
     Path previousRunDateTimeFile = null;
+    subjectDigestStore = null;
+    runDateTime = null;
 
     if (cacheFolderPath == null || !isWritable(cacheFolderPath)) {
       log.info("'odm.cache.folder.path' not specified or not writable - filtering disabled");
     } else {
       createDirectories(cacheFolderPath);
-      subjectODMHashesFile = cacheFolderPath.resolve("subject-odm-hashes");
+      if (deleteIfExists(cacheFolderPath.resolve("subject-odm-hashes"))) {
+        log.info("'subject-odm-hashes' replaced by 'subject-digests'");
+      }
+      subjectDigestStore = new SubjectDigestStore(cacheFolderPath.resolve("subject-digests"));
       previousRunDateTimeFile = cacheFolderPath.resolve("previous-run-date-time");
-      objectMapper = new ObjectMapper();
-      subjectODMHashes = !exists(subjectODMHashesFile) ? new HashMap<>() :
-                                  objectMapper.readValue(subjectODMHashesFile.toFile(), new TypeReference<HashMap<String,Integer>>() {});
       if (exists(previousRunDateTimeFile)) {
         previousRunDateTime = LocalDateTime.parse(readString(previousRunDateTimeFile));
       }
     }
 
-    read().toList().forEach(asConsumer(this::process));
+    var threads = processingThreads > 0 ? processingThreads : Runtime.getRuntime().availableProcessors();
+    var queuesize = processingQueuesize > 0 ? processingQueuesize : 2 * threads;
+
+    // NOTE Subjects are only ordered by submission, so concurrent readers would interleave the subjects of their inputs
+    var readerConcurrency = getReaderConcurrency();
+    if (processingOrdered && readerConcurrency > 1) {
+      log.info("Reading one input after the other as bundles are to be written in order");
+      readerConcurrency = 1;
+    }
 
-    if (subjectODMHashes != null) {
-      objectMapper.writerWithDefaultPrettyPrinter().writeValue(subjectODMHashesFile.toFile(), subjectODMHashes);
-        writeString(previousRunDateTimeFile, previousRunDateTime.toString());
+    try (var subjectPipeline = new SubjectPipeline<>(this::map, this::write, threads, queuesize, processingOrdered);
+         var inputs = read()) {
+      if (readerConcurrency > 1) {
+        process(inputs, subjectPipeline, readerConcurrency);
+      } else {
+        inputs.forEach(asConsumer(input -> process(input, subjectPipeline)));
       }
+    } finally {
+      // NOTE Closed only after all mapped subjects have been written
+      if (subjectDigestStore != null) {
+        subjectDigestStore.close();
+      }
+    }
+
+    if (subjectDigestStore != null && runDateTime != null) {
+      previousRunDateTime = runDateTime;
+      writeString(previousRunDateTimeFile, previousRunDateTime.toString());
+    }
 
     log.info("{} bundles with {} resources written", BUNDLES_NUMBER.getAndSet(0), RESOURCES_NUMBER.getAndSet(0));
+    logConnectionPoolStats();
   }
 
-  private void process(InputStream inputStream) throws Exception {
-    var xmlMapper = xmlBuilder().propertyNamingStrategy(new UpperCamelCaseStrategy())
-                                .defaultUseWrapper(false)
-                                .disable(FAIL_ON_UNKNOWN_PROPERTIES)
-                                .build();
-
-    var xmlStreamReader =  xmlMapper.getFactory().getXMLInputFactory().createXMLStreamReader(inputStream);
-
-    while (xmlStreamReader.hasNext()) {
-      xmlStreamReader.next();
-
-      if (xmlStreamReader.isStartElement()) {
-        switch (xmlStreamReader.getLocalName()) {
-          case "ODM" -> {
-            if (subjectODMHashes != null && initialODMInRun) {
-              var creationDateTime = xmlStreamReader.getAttributeValue(null, "CreationDateTime");
-              try {
-                previousRunDateTime = LocalDateTime.parse(creationDateTime);
-              } catch (DateTimeParseException dateTimeParseException) {
-                previousRunDateTime = ZonedDateTime.parse(creationDateTime).toLocalDateTime();
-              }
-            }
+  // Inputs are only taken from the stream once a reader is available to not prepare all of them at once
+  private void process(Stream<FailableSupplier<InputStream, IOException>> inputs,
+                       SubjectPipeline<ScannedSubjectData, MappedSubject> subjectPipeline, int concurrency)
+      throws Exception {
+    var executorService = newFixedThreadPool(concurrency, new CustomizableThreadFactory("odm-reader-"));
+    var availableReaders = new Semaphore(concurrency);
+    var failure = new AtomicReference<Throwable>();
+
+    try {
+      for (var iterator = inputs.iterator(); failure.get() == null && iterator.hasNext(); ) {
+        availableReaders.acquire();
+        var input = iterator.next();
+        executorService.execute(() -> {
+          try {
+            process(input, subjectPipeline);
+          } catch (Throwable throwable) {
+            failure.compareAndSet(null, throwable);
+          } finally {
+            availableReaders.release();
           }
-          case "SubjectData" -> {
-            var subjectData = xmlMapper.readValue(xmlStreamReader, SubjectData.class);
-            var hash = subjectODMHashes != null ? subjectData.hashCode() : null;
-            if (hash == null || !hash.equals(subjectODMHashes.get(subjectData.getSubjectKey()))) {
-              fhirBundleWriter.write(fhirBundler.bundle(new Subject().map(subjectData)));
-
-              if (subjectODMHashes != null) {
-                subjectODMHashes.put(subjectData.getSubjectKey(), hash);
+        });
+      }
+    } finally {
+      executorService.shutdown();
+      executorService.awaitTermination(1, DAYS);
+    }
+
+    if (failure.get() != null) {
+      rethrow(failure.get());
+    }
+  }
+
+  private void process(FailableSupplier<InputStream, IOException> input,
+                       SubjectPipeline<ScannedSubjectData, MappedSubject> subjectPipeline) throws Exception {
+    try (var inputStream = input.get()) {
+      var xmlStreamReader = createXMLStreamReader(inputStream);
+
+      while (xmlStreamReader.hasNext()) {
+        if (xmlStreamReader.next() == START_ELEMENT) {
+          switch (xmlStreamReader.getLocalName()) {
+            case "ODM" -> {
+              if (subjectDigestStore != null) {
+                updateRunDateTime(xmlStreamReader.getAttributeValue(null, "CreationDateTime"));
               }
             }
+            case "SubjectData" -> subjectPipeline.submit(scan(xmlStreamReader));
+            case "Study", "AdminData", "ReferenceData", "Association" -> xmlStreamReader.skipElement();
           }
         }
       }
     }
   }
 
+  private synchronized void updateRunDateTime(String creationDateTime) {
+    LocalDateTime odmDateTime;
+    try {
+      odmDateTime = LocalDateTime.parse(creationDateTime);
+    } catch (DateTimeParseException dateTimeParseException) {
+      odmDateTime = ZonedDateTime.parse(creationDateTime).toLocalDateTime();
+    }
+
+    if (runDateTime == null || odmDateTime.isBefore(runDateTime)) {
+      runDateTime = odmDateTime;
+    }
+  }
+
+  // Unchanged subjects are skipped before being bound at all
+  private MappedSubject map(ScannedSubjectData scannedSubjectData) throws Exception {
+    var subjectKey = scannedSubjectData.subjectKey();
+    var digest = subjectDigestStore != null ? Digest.of(digest(scannedSubjectData)) : null;
+
+    return digest != null && digest.equals(subjectDigestStore.get(subjectKey)) ? null :
+        new MappedSubject(subjectKey, digest, fhirBundler.bundle(subject.map(bind(scannedSubjectData))));
+  }
+
+  // Digests are stored only once the bundle is written to resend it after failures
+  private void write(MappedSubject mappedSubject) throws IOException {
+    fhirBundleWriter.write(mappedSubject.bundle());
+
+    if (subjectDigestStore != null) {
+      subjectDigestStore.put(mappedSubject.subjectKey(), mappedSubject.digest());
+    }
+  }
+
+  private record MappedSubject(String subjectKey, Digest digest, Bundle bundle) {}
+
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package de.difuture.uds.odm2fhir.odm.processor;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.apache.commons.lang3.exception.ExceptionUtils.rethrow;
+
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+// Runs at most the given number of tasks ahead of the consumer and returns their results in task order, i.e. no
+// further tasks are started while the consumer is busy with (or blocked after) the previous results
+@Slf4j
+class Prefetcher<T> implements Iterator<T>, AutoCloseable {
+
+  private static final int TERMINATION_TIMEOUT_SECONDS = 30;
+
+  private final Iterator<Callable<T>> tasks;
+
+  private final int concurrency;
+
+  private final ExecutorService executorService;
+
+  private final Queue<Future<T>> futures = new ArrayDeque<>();
+
+  Prefetcher(Iterator<Callable<T>> tasks, int concurrency, String threadNamePrefix) {
+    this.tasks = tasks;
+    this.concurrency = concurrency;
+
+    executorService = newFixedThreadPool(concurrency, new CustomizableThreadFactory(threadNamePrefix));
+
+    fill();
+  }
+
+  static <T> Stream<T> prefetch(Iterator<Callable<T>> tasks, int concurrency, String threadNamePrefix) {
+    var prefetcher = new Prefetcher<>(tasks, concurrency, threadNamePrefix);
+    return StreamSupport.stream(spliteratorUnknownSize(prefetcher, ORDERED | NONNULL), false)
+                        .onClose(prefetcher::close);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !futures.isEmpty();
+  }
+
+  @Override
+  public T next() {
+    var future = futures.poll();
+
+    if (future == null) {
+      throw new NoSuchElementException();
+    }
+
+    fill();
+
+    try {
+      return future.get();
+    } catch (ExecutionException executionException) {
+      close();
+      return rethrow(executionException.getCause());
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      close();
+      return rethrow(interruptedException);
+    }
+  }
+
+  @Override
+  public void close() {
+    futures.forEach(future -> future.cancel(true));
+    futures.clear();
+    executorService.shutdownNow();
+
+    // NOTE Waited for as cancelled tasks may still be finishing (e.g. writing results to be cleaned up after closing)
+    try {
+      if (!executorService.awaitTermination(TERMINATION_TIMEOUT_SECONDS, SECONDS)) {
+        log.warn("Prefetching tasks still running {} s after being cancelled", TERMINATION_TIMEOUT_SECONDS);
+      }
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fill() {
+    while (futures.size() < concurrency && tasks.hasNext()) {
+      futures.add(executorService.submit(tasks.next()));
+    }
+  }
+
+}
@@ -20,31 +20,50 @@ package de.difuture.uds.odm2fhir.odm.processor;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.function.FailableSupplier;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
-import static de.difuture.uds.odm2fhir.util.HTTPHelper.HTTP_CLIENT_BUILDER;
+import static de.difuture.uds.odm2fhir.odm.processor.Prefetcher.prefetch;
+import static de.difuture.uds.odm2fhir.util.HTTPHelper.getHTTPClient;
 
 import static org.apache.commons.io.IOUtils.readLines;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.StringUtils.substringBefore;
-import static org.apache.commons.lang3.function.Failable.asFunction;
+import static org.apache.commons.lang3.function.Failable.asPredicate;
 import static org.apache.http.HttpHeaders.CONTENT_TYPE;
+import static org.apache.http.HttpStatus.SC_OK;
 import static org.apache.http.client.methods.RequestBuilder.post;
 import static org.apache.http.entity.ContentType.APPLICATION_FORM_URLENCODED;
 
 import static java.lang.String.join;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.size;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.groupingBy;
 
 @ConditionalOnExpression("!'${odm.redcap.api.url:}'.empty")
 @Service
@@ -63,25 +82,96 @@ public class REDCapODMProcessor extends ODMProcessor {
   @Value("${odm.redcap.api.filterlogic:}")
   private String filterlogic;
 
-  public Stream<InputStream> read() throws Exception {
-    log.info("Reading ODM via REDCap API at '{}'", url);
+  @Value("${odm.redcap.api.concurrency:1}")
+  private int concurrency;
 
-    var counter = new AtomicInteger();
+  @Value("${odm.redcap.api.adaptivechunking.enabled:false}")
+  private boolean adaptivechunkingEnabled;
 
-    return readPatientIDs().collect(groupingBy(patientID -> counter.getAndIncrement() / patientspercall))
-                           .values()
-                           .stream()
-                           .map(asFunction(this::read));
-  }
+  @Value("${odm.redcap.api.adaptivechunking.minpatientspercall:1}")
+  private int adaptivechunkingMinpatientspercall;
+
+  @Value("${odm.redcap.api.adaptivechunking.maxpatientspercall:100}")
+  private int adaptivechunkingMaxpatientspercall;
+
+  @Value("${odm.redcap.api.adaptivechunking.targetsecondspercall:30}")
+  private int adaptivechunkingTargetsecondspercall;
+
+  @Value("${odm.redcap.api.adaptivechunking.targetmegabytespercall:50}")
+  private int adaptivechunkingTargetmegabytespercall;
+
+  @Value("${odm.redcap.api.spool.folder.path:${java.io.tmpdir}}")
+  private Path spoolFolderPath;
+
+  // Spooled exports not yet read (i.e. to be deleted if the run fails)
+  private final Set<Path> spoolFiles = ConcurrentHashMap.newKeySet();
+
+  public Stream<FailableSupplier<InputStream, IOException>> read() throws Exception {
+    log.info("Reading ODM via REDCap API at '{}'", url);
 
-  private InputStream read(List<String> patientIDs) throws Exception {
     var dateRangeBegin = ofNullable(previousRunDateTime).map(LocalDateTime::toString).orElse(null);
 
-    if (initialODMInRun && isNotBlank(dateRangeBegin)) {
+    if (isNotBlank(dateRangeBegin)) {
       log.info("Getting data changed since {}", dateRangeBegin);
-      initialODMInRun = false;
     }
 
+    var patientIDs = readPatientIDs().toList();
+    var chunkSizer = adaptivechunkingEnabled
+                     ? new ChunkSizer(patientspercall, adaptivechunkingMinpatientspercall, adaptivechunkingMaxpatientspercall,
+                                      adaptivechunkingTargetsecondspercall, adaptivechunkingTargetmegabytespercall)
+                     : null;
+
+    // Chunks are cut when their export is started to already use the chunk size adapted to the previous exports
+    var exports = new Iterator<Callable<List<Path>>>() {
+      private int from;
+
+      @Override
+      public boolean hasNext() {
+        return from < patientIDs.size();
+      }
+
+      @Override
+      public Callable<List<Path>> next() {
+        var chunkSize = chunkSizer != null ? chunkSizer.getChunkSize() : patientspercall;
+        var chunk = patientIDs.subList(from, from = min(from + chunkSize, patientIDs.size()));
+        return () -> read(chunk, dateRangeBegin, chunkSizer);
+      }
+    };
+
+    createDirectories(spoolFolderPath);
+
+    return prefetch(exports, concurrency, "redcap-export-").flatMap(List::stream)
+                                                           .map(this::open)
+                                                           .onClose(this::deleteSpoolFiles);
+  }
+
+  private List<Path> read(List<String> patientIDs, String dateRangeBegin, ChunkSizer chunkSizer) throws Exception {
+    if (chunkSizer == null) {
+      return List.of(read(patientIDs, dateRangeBegin));
+    }
+
+    var start = nanoTime();
+
+    try {
+      var spoolFile = read(patientIDs, dateRangeBegin);
+      chunkSizer.succeeded(patientIDs.size(), nanoTime() - start, size(spoolFile));
+      return List.of(spoolFile);
+    } catch (IOException ioException) {
+      if (patientIDs.size() == 1 || ioException instanceof InterruptedIOException) {
+        throw ioException;
+      }
+
+      log.warn("Export of {} patients failed ({}) - retrying in halves", patientIDs.size(), ioException.getMessage());
+      chunkSizer.failed(patientIDs.size());
+
+      var half = patientIDs.size() / 2;
+      var spoolFiles = new ArrayList<>(read(patientIDs.subList(0, half), dateRangeBegin, chunkSizer));
+      spoolFiles.addAll(read(patientIDs.subList(half, patientIDs.size()), dateRangeBegin, chunkSizer));
+      return spoolFiles;
+    }
+  }
+
+  private Path read(List<String> patientIDs, String dateRangeBegin) throws Exception {
     var httpPost = post(url.toURI()).addHeader(CONTENT_TYPE, APPLICATION_FORM_URLENCODED.getMimeType())
                                     .addParameter("token", token)
                                     .addParameter("content", "record")
@@ -91,7 +181,47 @@ public class REDCapODMProcessor extends ODMProcessor {
                                     .addParameter("dateRangeBegin", dateRangeBegin)
                                     .build();
 
-    return HTTP_CLIENT_BUILDER.build().execute(httpPost).getEntity().getContent();
+    // Downloaded completely to free the connection for the next export while this one is parsed - spooled to a file as
+    // keeping all prefetched exports in memory would take up to the concurrency times the (growing) export size
+    try (var httpResponse = getHTTPClient("odm.redcap.api").execute(httpPost)) {
+      var statusLine = httpResponse.getStatusLine();
+      if (statusLine.getStatusCode() != SC_OK) {
+        throw new IOException("REDCap export failed with '" + statusLine + "'");
+      }
+
+      var spoolFile = createTempFile(spoolFolderPath, "redcap-export-", ".xml");
+      spoolFiles.add(spoolFile);
+
+      try (var outputStream = newOutputStream(spoolFile)) {
+        httpResponse.getEntity().writeTo(outputStream);
+        // NOTE Not kept if cancelled meanwhile as the spooled exports may already have been deleted on closing
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedIOException("REDCap export cancelled");
+        }
+      } catch (IOException ioException) {
+        spoolFiles.remove(spoolFile);
+        deleteIfExists(spoolFile);
+        throw ioException;
+      }
+
+      return spoolFile;
+    }
+  }
+
+  // Deleted once read completely (or with the remaining spooled exports if never read)
+  private FailableSupplier<InputStream, IOException> open(Path spoolFile) {
+    return () -> {
+      var inputStream = newInputStream(spoolFile, DELETE_ON_CLOSE);
+      spoolFiles.remove(spoolFile);
+      return inputStream;
+    };
+  }
+
+  private void deleteSpoolFiles() {
+    spoolFiles.removeIf(asPredicate(spoolFile -> {
+      deleteIfExists(spoolFile);
+      return true;
+    }));
   }
 
   private Stream<String> readPatientIDs() throws Exception {
@@ -104,11 +234,13 @@ public class REDCapODMProcessor extends ODMProcessor {
                                     .addParameter("filterLogic", filterlogic)
                                     .build();
 
-    return readLines(HTTP_CLIENT_BUILDER.build().execute(httpPost).getEntity().getContent(), UTF_8)
-        .stream()
-        .skip(1)
-        .map(line -> substringBefore(line, ","))
-        .distinct();
+    try (var httpResponse = getHTTPClient("odm.redcap.api").execute(httpPost)) {
+      return readLines(httpResponse.getEntity().getContent(), UTF_8)
+          .stream()
+          .skip(1)
+          .map(line -> substringBefore(line, ","))
+          .distinct();
+    }
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package de.difuture.uds.odm2fhir.odm.processor;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Keeps the digests of all written subjects in an append-only log of checksummed records (key length, key, digest,
+// CRC32), so each written subject costs one appended record and a crash loses at most the record being appended -
+// the log is rewritten once most of its records have been superseded
+@Slf4j
+class SubjectDigestStore implements Closeable {
+
+  private static final long MAGIC = 0x4f444d3246484952L; // "ODM2FHIR"
+
+  private static final int VERSION = 1;
+
+  private static final int MAX_KEY_LENGTH = Short.MAX_VALUE;
+
+  private static final int MIN_RECORDS_FOR_COMPACTION = 1024;
+
+  private final Path file;
+
+  private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+
+  private FileChannel fileChannel;
+
+  private long records;
+
+  SubjectDigestStore(Path file) throws IOException {
+    this.file = file;
+
+    var length = exists(file) ? load() : 0L;
+
+    if (length == 0L || needsCompaction()) {
+      compact();
+    } else {
+      fileChannel = FileChannel.open(file, WRITE);
+      fileChannel.truncate(length);
+      fileChannel.position(length);
+    }
+
+    log.info("{} subject digests loaded from '{}'", digests.size(), file);
+  }
+
+  Digest get(String subjectKey) {
+    return digests.get(subjectKey);
+  }
+
+  synchronized void put(String subjectKey, Digest digest) throws IOException {
+    if (!digest.equals(digests.put(subjectKey, digest))) {
+      write(fileChannel, record(subjectKey.getBytes(UTF_8), digest));
+      records++;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (needsCompaction()) {
+      compact();
+    }
+
+    fileChannel.force(false);
+    fileChannel.close();
+  }
+
+  // Returns the length of the intact part of the log, i.e. without a partially written or corrupt last record
+  private long load() throws IOException {
+    var length = 0L;
+
+    try (var dataInputStream = new DataInputStream(new BufferedInputStream(newInputStream(file)))) {
+      if (dataInputStream.readLong() != MAGIC || dataInputStream.readInt() != VERSION) {
+        log.warn("Unknown format of '{}' - starting with empty subject digests", file);
+        return 0L;
+      }
+
+      length = Long.BYTES + Integer.BYTES;
+
+      while (true) {
+        var keyLength = dataInputStream.readInt();
+        var key = keyLength >= 0 && keyLength <= MAX_KEY_LENGTH ? dataInputStream.readNBytes(keyLength) : null;
+        if (key == null || key.length != keyLength) {
+          break;
+        }
+
+        var digest = new Digest(dataInputStream.readLong(), dataInputStream.readLong());
+        var record = record(key, digest);
+        if (dataInputStream.readInt() != record.getInt(record.limit() - Integer.BYTES)) {
+          break;
+        }
+
+        digests.put(new String(key, UTF_8), digest);
+        records++;
+        length += record.limit();
+      }
+
+      log.warn("Ignoring corrupt end of '{}' after {} records", file, records);
+    } catch (EOFException eofException) {
+      // End of log (or of a partially written last record) reached
+    }
+
+    return length;
+  }
+
+  private boolean needsCompaction() {
+    return records > MIN_RECORDS_FOR_COMPACTION && records > 2L * digests.size();
+  }
+
+  // Written to a temporary file first to always keep an intact log in place
+  private void compact() throws IOException {
+    var compactedFile = file.resolveSibling(file.getFileName() + ".compacted");
+
+    try (var compactedFileChannel = FileChannel.open(compactedFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      write(compactedFileChannel, ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(MAGIC).putInt(VERSION).flip());
+      for (var entry : digests.entrySet()) {
+        write(compactedFileChannel, record(entry.getKey().getBytes(UTF_8), entry.getValue()));
+      }
+      compactedFileChannel.force(false);
+    }
+
+    if (fileChannel != null) {
+      fileChannel.close();
+    }
+
+    move(compactedFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+
+    fileChannel = FileChannel.open(file, WRITE);
+    fileChannel.position(fileChannel.size());
+    records = digests.size();
+  }
+
+  private static ByteBuffer record(byte[] key, Digest digest) {
+    var record = ByteBuffer.allocate(Integer.BYTES + key.length + 2 * Long.BYTES + Integer.BYTES)
+                           .putInt(key.length)
+                           .put(key)
+                           .putLong(digest.mostSignificantBits())
+                           .putLong(digest.leastSignificantBits());
+
+    var crc32 = new CRC32();
+    crc32.update(record.array(), 0, record.position());
+
+    return record.putInt((int) crc32.getValue()).flip();
+  }
+
+  private static void write(FileChannel fileChannel, ByteBuffer byteBuffer) throws IOException {
+    while (byteBuffer.hasRemaining()) {
+      fileChannel.write(byteBuffer);
+    }
+  }
+
+  record Digest(long mostSignificantBits, long leastSignificantBits) {
+
+    static Digest of(byte[] bytes) {
+      var byteBuffer = ByteBuffer.wrap(bytes);
+      return new Digest(byteBuffer.getLong(), byteBuffer.getLong());
+    }
+
+  }
+
+}
@@ -0,0 +1,167 @@
+package de.difuture.uds.odm2fhir.odm.processor;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.function.FailableConsumer;
+import org.apache.commons.lang3.function.FailableFunction;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.apache.commons.lang3.exception.ExceptionUtils.rethrow;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+@Slf4j
+class SubjectPipeline<T, R> implements AutoCloseable {
+
+  private record Entry<T>(long index, T value) {}
+
+  private final FailableFunction<T, R, Exception> transformer;
+
+  private final FailableConsumer<R, Exception> sink;
+
+  private final boolean ordered;
+
+  private final int threads;
+
+  private final BlockingQueue<Entry<T>> queue;
+
+  private final ExecutorService executorService;
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private final Object submitLock = new Object();
+
+  private boolean failureRethrown;
+
+  private long submitted;
+
+  private long nextIndex;
+
+  SubjectPipeline(FailableFunction<T, R, Exception> transformer, FailableConsumer<R, Exception> sink,
+                  int threads, int queueSize, boolean ordered) {
+    this.transformer = transformer;
+    this.sink = sink;
+    this.ordered = ordered;
+    this.threads = threads;
+
+    queue = new ArrayBlockingQueue<>(queueSize);
+    executorService = newFixedThreadPool(threads, new CustomizableThreadFactory("subject-pipeline-"));
+
+    for (var i = 0; i < threads; i++) {
+      executorService.execute(this::work);
+    }
+
+    log.info("Processing subjects with {} threads (queue size {}, {})", threads, queueSize, ordered ? "ordered" : "unordered");
+  }
+
+  // NOTE Indexes are enqueued in order as in ordered mode a single worker would otherwise wait for a missing index
+  void submit(T value) throws InterruptedException {
+    synchronized (submitLock) {
+      rethrowFailure();
+      queue.put(new Entry<>(submitted++, value));
+    }
+  }
+
+  // NOTE Not declaring InterruptedException (but rethrowing it after restoring the interrupt) for try-with-resources
+  @Override
+  public void close() {
+    try {
+      for (var i = 0; i < threads; i++) {
+        queue.put(new Entry<>(-1, null));
+      }
+
+      executorService.shutdown();
+      executorService.awaitTermination(1, DAYS);
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      executorService.shutdownNow();
+      rethrow(interruptedException);
+    }
+
+    synchronized (submitLock) {
+      rethrowFailure();
+    }
+  }
+
+  private void work() {
+    try {
+      for (var entry = queue.take(); entry.index() >= 0; entry = queue.take()) {
+        R result = null;
+
+        // After a failure all remaining entries are only drained to release the reader
+        if (failure.get() == null) {
+          try {
+            result = transformer.apply(entry.value());
+          } catch (Throwable throwable) {
+            failure.compareAndSet(null, throwable);
+          }
+        }
+
+        if (ordered) {
+          synchronized (this) {
+            while (entry.index() != nextIndex) {
+              wait();
+            }
+
+            // NOTE Always advanced as all other workers would otherwise wait for this index forever
+            try {
+              accept(result);
+            } finally {
+              nextIndex++;
+              notifyAll();
+            }
+          }
+        } else {
+          accept(result);
+        }
+      }
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void accept(R result) {
+    if (result != null && failure.get() == null) {
+      try {
+        sink.accept(result);
+      } catch (Throwable throwable) {
+        failure.compareAndSet(null, throwable);
+      }
+    }
+  }
+
+  private void rethrowFailure() {
+    var throwable = failure.get();
+
+    if (throwable != null && !failureRethrown) {
+      failureRethrown = true;
+      rethrow(throwable);
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package de.difuture.uds.odm2fhir.odm.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import de.difuture.uds.odm2fhir.fhir.mapper.Item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.apache.commons.lang3.StringUtils.isNumeric;
+import static org.apache.commons.lang3.StringUtils.replaceEach;
+import static org.apache.commons.lang3.math.NumberUtils.toInt;
+
+import static org.springframework.core.io.support.PropertiesLoaderUtils.loadProperties;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toUnmodifiableMap;
+
+@Lazy(false)
+@Service
+public class CodeLists {
+
+  private CodeLists() {}
+
+  private static final String[] SEARCH_LIST = { "PLUS", "EQUAL", "COLON", "COMMA", "LESSTHAN", "LBRACKET", "RBRACKET" };
+  private static final String[] REPLACEMENT_LIST = { "+", "=", ":", ",", "<", "{", "}" };
+
+  private static Map<String, String[]> CODE_LISTS = Map.of();
+
+  // Compiled once as resolving and converting the properties for every value is one of the most expensive parts of
+  // mapping - the environment still allows to override single code lists of the mapping
+  @Autowired
+  public void setCodeLists(Environment environment,
+                           @Value("classpath:odm/redcap/mapping.properties") Resource mapping) throws IOException {
+    CODE_LISTS = loadProperties(mapping).stringPropertyNames().stream()
+                                        .collect(toUnmodifiableMap(identity(),
+                                                                   itemOID -> environment.getProperty(itemOID, String[].class)));
+
+    // NOTE Triggered here as the mappers may be loaded before the code lists are set
+    Item.parseCodingTemplates();
+  }
+
+  // Values out of their code list's range are kept as they are to be reported as invalid by the mappers
+  public static String decode(String itemOID, String value) {
+    if (isNumeric(value)) {
+      var codes = CODE_LISTS.get(itemOID);
+      // NOTE Numbers too large for an int are out of range as well
+      var index = toInt(value, 0) - 1;
+      if (codes != null && index >= 0 && index < codes.length) {
+        value = codes[index];
+      }
+    }
+
+    return replaceEach(value, SEARCH_LIST, REPLACEMENT_LIST);
+  }
+
+  public static void forEachCode(BiConsumer<String, String> consumer) {
+    CODE_LISTS.forEach((itemOID, codes) -> {
+      for (var code : codes) {
+        consumer.accept(itemOID, replaceEach(code, SEARCH_LIST, REPLACEMENT_LIST));
+      }
+    });
+  }
+
+}
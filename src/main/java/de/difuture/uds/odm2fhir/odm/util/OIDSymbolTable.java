@@ -0,0 +1,78 @@
+package de.difuture.uds.odm2fhir.odm.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static com.fasterxml.jackson.dataformat.csv.CsvParser.Feature.WRAP_AS_ARRAY;
+
+@Lazy(false)
+@Service
+public class OIDSymbolTable {
+
+  private OIDSymbolTable() {}
+
+  private static final int MAX_SIZE = 16384;
+
+  private static final Map<String, String> SYMBOLS = new ConcurrentHashMap<>();
+
+  // Seeded with the item, form and item group OIDs of the data dictionary's fields - interned to be identical to the
+  // literals the mappers look them up by
+  @Autowired
+  public void setSymbols(@Value("classpath:odm/redcap/datadictionary.csv") Resource datadictionary) throws IOException {
+    try (var rows = new CsvMapper().enable(WRAP_AS_ARRAY)
+                                   .readerFor(String[].class)
+                                   .<String[]>readValues(datadictionary.getInputStream())) {
+      rows.next(); // Skip header...
+
+      while (rows.hasNext()) {
+        var row = rows.next();
+        Stream.of(row[0], "Form." + row[1], row[1] + "." + row[0]).forEach(OIDSymbolTable::canonicalize);
+      }
+    }
+  }
+
+  // OIDs missing in the data dictionary (e.g. of events and checkboxes) are added when first seen until the table is
+  // full to not let arbitrary input grow it
+  public static String canonicalize(String oid) {
+    if (oid == null) {
+      return null;
+    }
+
+    var symbol = SYMBOLS.get(oid);
+
+    if (symbol == null && SYMBOLS.size() < MAX_SIZE) {
+      symbol = SYMBOLS.computeIfAbsent(oid, String::intern);
+    }
+
+    return symbol != null ? symbol : oid;
+  }
+
+}
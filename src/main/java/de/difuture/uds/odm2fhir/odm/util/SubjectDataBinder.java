@@ -0,0 +1,335 @@
+package de.difuture.uds.odm2fhir.odm.util;
+
+/*
+ * Copyright (C) 2021 DIFUTURE (https://difuture.de)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import com.ctc.wstx.stax.WstxInputFactory;
+
+import de.difuture.uds.odm2fhir.odm.model.FormData;
+import de.difuture.uds.odm2fhir.odm.model.ItemData;
+import de.difuture.uds.odm2fhir.odm.model.ItemGroupData;
+import de.difuture.uds.odm2fhir.odm.model.StudyEventData;
+import de.difuture.uds.odm2fhir.odm.model.SubjectData;
+
+import org.codehaus.stax2.XMLStreamReader2;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+
+import static de.difuture.uds.odm2fhir.odm.util.CodeLists.decode;
+import static de.difuture.uds.odm2fhir.odm.util.OIDSymbolTable.canonicalize;
+
+import static javax.xml.stream.XMLInputFactory.IS_COALESCING;
+import static javax.xml.stream.XMLInputFactory.IS_NAMESPACE_AWARE;
+import static javax.xml.stream.XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES;
+import static javax.xml.stream.XMLInputFactory.SUPPORT_DTD;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOf;
+
+public class SubjectDataBinder {
+
+  private static final byte STUDY_EVENT_DATA = 1;
+  private static final byte FORM_DATA = 2;
+  private static final byte ITEM_GROUP_DATA = 3;
+  private static final byte ITEM_DATA = 4;
+
+  private static final String[] ELEMENT_NAMES = { null, "StudyEventData", "FormData", "ItemGroupData", "ItemData" };
+  private static final String[] END_ELEMENT_NAMES = { null, "/StudyEventData", "/FormData", "/ItemGroupData" };
+
+  // NOTE Factories are thread-safe once configured, readers are not
+  private static final WstxInputFactory XML_INPUT_FACTORY = new WstxInputFactory();
+
+  static {
+    XML_INPUT_FACTORY.configureForSpeed();
+    XML_INPUT_FACTORY.setProperty(IS_NAMESPACE_AWARE, true);
+    XML_INPUT_FACTORY.setProperty(IS_COALESCING, false);
+    XML_INPUT_FACTORY.setProperty(SUPPORT_DTD, false);
+    XML_INPUT_FACTORY.setProperty(IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  private SubjectDataBinder() {}
+
+  public static XMLStreamReader2 createXMLStreamReader(InputStream inputStream) throws XMLStreamException {
+    return (XMLStreamReader2) XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+  }
+
+  // Expects the reader at the start of a SubjectData element and leaves it at its end - only collecting the bound
+  // data in document order, i.e. element names, their bound attributes and end markers for nested elements, with OIDs
+  // shared by all subjects
+  public static ScannedSubjectData scan(XMLStreamReader2 xmlStreamReader) throws XMLStreamException {
+    var subjectKey = xmlStreamReader.getAttributeValue(null, "SubjectKey");
+    var scannedSubjectDataBuilder = new ScannedSubjectDataBuilder();
+
+    while (nextChild(xmlStreamReader)) {
+      switch (xmlStreamReader.getLocalName()) {
+        case "StudyEventData" -> scanStudyEventData(xmlStreamReader, scannedSubjectDataBuilder);
+        case "FormData" -> scanFormData(xmlStreamReader, scannedSubjectDataBuilder);
+        default -> xmlStreamReader.skipElement(); // AuditRecord, Signature, InvestigatorRef, SiteRef, Annotation...
+      }
+    }
+
+    return scannedSubjectDataBuilder.build(subjectKey);
+  }
+
+  private static void scanStudyEventData(XMLStreamReader2 xmlStreamReader,
+                                         ScannedSubjectDataBuilder scannedSubjectDataBuilder) throws XMLStreamException {
+    scannedSubjectDataBuilder.start(STUDY_EVENT_DATA,
+                                    canonicalize(xmlStreamReader.getAttributeValue(null, "StudyEventOID")),
+                                    xmlStreamReader.getAttributeValue(null, "StudyEventRepeatKey"));
+
+    while (nextChild(xmlStreamReader)) {
+      if ("FormData".equals(xmlStreamReader.getLocalName())) {
+        scanFormData(xmlStreamReader, scannedSubjectDataBuilder);
+      } else {
+        xmlStreamReader.skipElement();
+      }
+    }
+
+    scannedSubjectDataBuilder.end(STUDY_EVENT_DATA);
+  }
+
+  private static void scanFormData(XMLStreamReader2 xmlStreamReader,
+                                   ScannedSubjectDataBuilder scannedSubjectDataBuilder) throws XMLStreamException {
+    scannedSubjectDataBuilder.start(FORM_DATA,
+                                    canonicalize(xmlStreamReader.getAttributeValue(null, "FormOID")),
+                                    xmlStreamReader.getAttributeValue(null, "FormRepeatKey"));
+
+    while (nextChild(xmlStreamReader)) {
+      if ("ItemGroupData".equals(xmlStreamReader.getLocalName())) {
+        scanItemGroupData(xmlStreamReader, scannedSubjectDataBuilder);
+      } else {
+        xmlStreamReader.skipElement();
+      }
+    }
+
+    scannedSubjectDataBuilder.end(FORM_DATA);
+  }
+
+  private static void scanItemGroupData(XMLStreamReader2 xmlStreamReader,
+                                        ScannedSubjectDataBuilder scannedSubjectDataBuilder) throws XMLStreamException {
+    scannedSubjectDataBuilder.start(ITEM_GROUP_DATA,
+                                    canonicalize(xmlStreamReader.getAttributeValue(null, "ItemGroupOID")),
+                                    xmlStreamReader.getAttributeValue(null, "ItemGroupRepeatKey"));
+
+    while (nextChild(xmlStreamReader)) {
+      if ("ItemData".equals(xmlStreamReader.getLocalName())) {
+        scannedSubjectDataBuilder.start(ITEM_DATA,
+                                        canonicalize(xmlStreamReader.getAttributeValue(null, "ItemOID")),
+                                        xmlStreamReader.getAttributeValue(null, "Value"));
+      }
+      xmlStreamReader.skipElement();
+    }
+
+    scannedSubjectDataBuilder.end(ITEM_GROUP_DATA);
+  }
+
+  // Terminates each value with a byte not allowed in XML to keep the digested sequence unambiguous - the sequence of
+  // element names, OIDs, repeat keys, values and end markers is the one digested before the data was held columnar
+  public static byte[] digest(ScannedSubjectData scannedSubjectData) throws NoSuchAlgorithmException {
+    var messageDigest = MessageDigest.getInstance("MD5");
+
+    digest(messageDigest, "SubjectData");
+    digest(messageDigest, scannedSubjectData.subjectKey());
+
+    var elements = new ScannedElements(scannedSubjectData);
+    while (elements.hasNext()) {
+      var element = elements.next();
+      if (element > 0) {
+        digest(messageDigest, ELEMENT_NAMES[element]);
+        digest(messageDigest, elements.oid());
+        digest(messageDigest, elements.text());
+      } else {
+        digest(messageDigest, END_ELEMENT_NAMES[-element]);
+      }
+    }
+
+    return messageDigest.digest();
+  }
+
+  private static void digest(MessageDigest messageDigest, String value) {
+    if (value != null) {
+      messageDigest.update(value.getBytes(UTF_8));
+    }
+    messageDigest.update(value != null ? (byte) 0 : (byte) 1);
+  }
+
+  public static SubjectData bind(ScannedSubjectData scannedSubjectData) {
+    var subjectData = new SubjectData().setSubjectKey(scannedSubjectData.subjectKey());
+
+    var studyEventData = new ArrayList<StudyEventData>();
+    var formData = new ArrayList<FormData>();
+
+    var elements = new ScannedElements(scannedSubjectData);
+    while (elements.hasNext()) {
+      switch (elements.next()) {
+        case STUDY_EVENT_DATA -> studyEventData.add(bindStudyEventData(elements).setSubjectData(subjectData));
+        case FORM_DATA -> formData.add(bindFormData(elements).setSubjectData(subjectData));
+        default -> throw new IllegalStateException("Unexpected element");
+      }
+    }
+
+    return subjectData.setStudyEventData(studyEventData).setFormData(formData);
+  }
+
+  private static StudyEventData bindStudyEventData(ScannedElements elements) {
+    var studyEventData = new StudyEventData().setStudyEventOID(elements.oid()).setStudyEventRepeatKey(elements.text());
+
+    var formData = new ArrayList<FormData>();
+
+    while (elements.next() == FORM_DATA) {
+      formData.add(bindFormData(elements).setStudyEventData(studyEventData));
+    }
+
+    return studyEventData.setFormData(formData);
+  }
+
+  private static FormData bindFormData(ScannedElements elements) {
+    var formData = new FormData().setFormOID(elements.oid()).setFormRepeatKey(elements.text());
+
+    var itemGroupData = new ArrayList<ItemGroupData>();
+
+    while (elements.next() == ITEM_GROUP_DATA) {
+      itemGroupData.add(bindItemGroupData(elements).setFormData(formData));
+    }
+
+    return formData.setItemGroupData(itemGroupData);
+  }
+
+  private static ItemGroupData bindItemGroupData(ScannedElements elements) {
+    var itemGroupData = new ItemGroupData().setItemGroupOID(elements.oid()).setItemGroupRepeatKey(elements.text());
+
+    var itemData = new ArrayList<ItemData>();
+
+    while (elements.next() == ITEM_DATA) {
+      var itemOID = elements.oid();
+      itemData.add(new ItemData().setItemOID(itemOID).setValue(decode(itemOID, elements.text())).setItemGroupData(itemGroupData));
+    }
+
+    return itemGroupData.setItemData(itemData);
+  }
+
+  // Moves to the next child element and returns false when reaching the end of the current element instead
+  private static boolean nextChild(XMLStreamReader2 xmlStreamReader) throws XMLStreamException {
+    while (true) {
+      switch (xmlStreamReader.next()) {
+        case START_ELEMENT -> {
+          return true;
+        }
+        case END_ELEMENT -> {
+          return false;
+        }
+        case END_DOCUMENT -> throw new XMLStreamException("Unexpected end of document", xmlStreamReader.getLocation());
+      }
+    }
+  }
+
+  // Held columnar until bound to buffer many subjects in the pipeline: one byte per element (negated for its end),
+  // the shared OIDs of the started elements and their repeat keys or values concatenated to one string (being compact,
+  // i.e. Latin-1, for most data) with the end of each one (complemented if absent)
+  public record ScannedSubjectData(String subjectKey, byte[] elements, String[] oids, int[] textEnds, String texts) {}
+
+  private static final class ScannedSubjectDataBuilder {
+
+    private byte[] elements = new byte[256];
+    private int elementsNumber;
+
+    private String[] oids = new String[128];
+    private int[] textEnds = new int[128];
+    private int startedElementsNumber;
+
+    private final StringBuilder texts = new StringBuilder();
+
+    private void start(byte element, String oid, String text) {
+      add(element);
+
+      if (startedElementsNumber == oids.length) {
+        oids = copyOf(oids, 2 * startedElementsNumber);
+        textEnds = copyOf(textEnds, 2 * startedElementsNumber);
+      }
+
+      if (text != null) {
+        texts.append(text);
+      }
+
+      oids[startedElementsNumber] = oid;
+      textEnds[startedElementsNumber++] = text != null ? texts.length() : ~texts.length();
+    }
+
+    private void end(byte element) {
+      add((byte) -element);
+    }
+
+    private void add(byte element) {
+      if (elementsNumber == elements.length) {
+        elements = copyOf(elements, 2 * elementsNumber);
+      }
+
+      elements[elementsNumber++] = element;
+    }
+
+    private ScannedSubjectData build(String subjectKey) {
+      return new ScannedSubjectData(subjectKey, copyOf(elements, elementsNumber), copyOf(oids, startedElementsNumber),
+                                    copyOf(textEnds, startedElementsNumber), texts.toString());
+    }
+
+  }
+
+  // Positioned at the last element returned by next() with oid() and text() referring to the last started element
+  private static final class ScannedElements {
+
+    private final ScannedSubjectData scannedSubjectData;
+
+    private int element = -1;
+    private int startedElement = -1;
+
+    private ScannedElements(ScannedSubjectData scannedSubjectData) {
+      this.scannedSubjectData = scannedSubjectData;
+    }
+
+    private boolean hasNext() {
+      return element + 1 < scannedSubjectData.elements().length;
+    }
+
+    private byte next() {
+      var next = scannedSubjectData.elements()[++element];
+      if (next > 0) {
+        startedElement++;
+      }
+      return next;
+    }
+
+    private String oid() {
+      return scannedSubjectData.oids()[startedElement];
+    }
+
+    private String text() {
+      var textEnd = scannedSubjectData.textEnds()[startedElement];
+      var textBegin = startedElement == 0 ? 0 : scannedSubjectData.textEnds()[startedElement - 1];
+      return textEnd < 0 ? null : scannedSubjectData.texts().substring(textBegin < 0 ? ~textBegin : textBegin, textEnd);
+    }
+
+  }
+
+}
@@ -24,9 +24,18 @@ import ca.uhn.fhir.rest.client.interceptor.BearerTokenAuthInterceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContextBuilder;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,43 +44,130 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLContext;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.commons.lang3.StringUtils.isNoneBlank;
+import static org.apache.commons.lang3.StringUtils.split;
 import static org.apache.commons.lang3.function.Failable.asConsumer;
 
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 @Service
 @DependsOn("environmentProvider")
 @Lazy(false)
+@Slf4j
 public class HTTPHelper {
 
   private HTTPHelper() {}
 
-  public static HttpClientBuilder HTTP_CLIENT_BUILDER;
+  private static final List<String> TARGETS = List.of("odm.redcap.api", "odm.dis.rest", "fhir.server", "fhir.terminologyserver");
+
+  private static final Map<String, PoolingHttpClientConnectionManager> CONNECTION_MANAGERS = new ConcurrentHashMap<>();
+
+  private static final Map<String, CloseableHttpClient> HTTP_CLIENTS = new ConcurrentHashMap<>();
+
+  private static Environment ENVIRONMENT;
+
+  private static SSLContext SSL_CONTEXT;
 
   @Autowired
-  public void setHTTPClientBuilder(Environment environment) throws Exception {
+  public void setSSLContext(Environment environment) throws Exception {
     var sslContextBuilder = SSLContextBuilder.create()
                                              .loadTrustMaterial(null, (certificate, authType) -> true);
 
-    List.of("odm.redcap.api", "odm.dis.rest", "fhir.server", "fhir.terminologyserver")
-        .forEach(asConsumer(entry -> {
-          var keyFile = environment.getProperty(entry + ".key.file.path", File.class);
-          var keyPassword = environment.getProperty(entry + ".key.password", "").toCharArray();
-          if (keyFile != null) {
-            sslContextBuilder.loadKeyMaterial(keyFile, keyPassword, keyPassword);
-          }
-        }));
-
-    HTTP_CLIENT_BUILDER = HttpClientBuilder.create()
-                                           .useSystemProperties()
-                                           .setSSLContext(sslContextBuilder.build())
-                                           .setSSLHostnameVerifier(new NoopHostnameVerifier());
+    TARGETS.forEach(asConsumer(target -> {
+      var keyFile = environment.getProperty(target + ".key.file.path", File.class);
+      var keyPassword = environment.getProperty(target + ".key.password", "").toCharArray();
+      if (keyFile != null) {
+        sslContextBuilder.loadKeyMaterial(keyFile, keyPassword, keyPassword);
+      }
+    }));
+
+    ENVIRONMENT = environment;
+    SSL_CONTEXT = sslContextBuilder.build();
+  }
+
+  // One long-lived client per target, keeping connections alive for reuse by all following requests
+  public static CloseableHttpClient getHTTPClient(String target) {
+    if (!TARGETS.contains(target)) {
+      throw new IllegalArgumentException("Unknown HTTP target '" + target + "'");
+    }
+
+    return HTTP_CLIENTS.computeIfAbsent(target, HTTPHelper::createHTTPClient);
+  }
+
+  private static CloseableHttpClient createHTTPClient(String target) {
+    var sslConnectionSocketFactory = new SSLConnectionSocketFactory(SSL_CONTEXT,
+                                                                    split(System.getProperty("https.protocols"), ','),
+                                                                    split(System.getProperty("https.cipherSuites"), ','),
+                                                                    new NoopHostnameVerifier());
+
+    var connectionManager = new PoolingHttpClientConnectionManager(
+        RegistryBuilder.<ConnectionSocketFactory>create()
+                       .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                       .register("https", sslConnectionSocketFactory)
+                       .build());
+    var maxPerRoute = ENVIRONMENT.getProperty(target + ".pool.maxperroute", Integer.class, max(10, getConcurrency(target)));
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    connectionManager.setMaxTotal(ENVIRONMENT.getProperty(target + ".pool.maxtotal", Integer.class, max(20, maxPerRoute)));
+
+    var requestConfig = RequestConfig.custom()
+        .setConnectTimeout(getTimeout(target + ".timeout.connect"))
+        .setSocketTimeout(getTimeout(target + ".timeout.socket"))
+        .build();
+
+    CONNECTION_MANAGERS.put(target, connectionManager);
+
+    return HttpClientBuilder.create()
+                            .useSystemProperties()
+                            .setConnectionManager(connectionManager)
+                            .setDefaultRequestConfig(requestConfig)
+                            .evictExpiredConnections()
+                            .evictIdleConnections(60, SECONDS)
+                            .build();
+  }
+
+  // Number of threads possibly using the target at once, so none of them blocks waiting for a pooled connection
+  private static int getConcurrency(String target) {
+    var processingThreads = ENVIRONMENT.getProperty("odm.processing.threads", Integer.class, 0);
+    if (processingThreads <= 0) {
+      processingThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    return switch (target) {
+      case "odm.redcap.api" -> ENVIRONMENT.getProperty("odm.redcap.api.concurrency", Integer.class, 1);
+      case "odm.dis.rest" -> 1;
+      default -> max(processingThreads, ENVIRONMENT.getProperty("fhir.validation.threads", Integer.class, 0));
+    };
+  }
+
+  // In milliseconds - or -1 for the system default if not set (or negative)
+  private static int getTimeout(String property) {
+    var timeout = ENVIRONMENT.getProperty(property, Integer.class, -1);
+    return timeout < 0 ? -1 : (int) SECONDS.toMillis(timeout);
+  }
+
+  public static void logConnectionPoolStats() {
+    CONNECTION_MANAGERS.forEach((target, connectionManager) ->
+        log.info("HTTP connection pool for '{}': {}", target, connectionManager.getTotalStats()));
   }
 
-  public static IClientInterceptor createAuthInterceptor(String basicauthUsername, String basicauthPassword,
+  @PreDestroy
+  private void close() {
+    HTTP_CLIENTS.values().forEach(asConsumer(CloseableHttpClient::close));
+    HTTP_CLIENTS.clear();
+    CONNECTION_MANAGERS.clear();
+  }
+
+  public static IClientInterceptor createAuthInterceptor(String target,
+                                                         String basicauthUsername, String basicauthPassword,
                                                          String oauth2TokenURL, String oauth2ClientId, String oauth2ClientSecret)
                                                         throws IOException {
     IClientInterceptor clientInterceptor = new BasicAuthInterceptor(basicauthUsername, basicauthPassword);
@@ -83,11 +179,11 @@ public class HTTPHelper {
                                    .addParameter("client_secret", oauth2ClientSecret)
                                    .build();
 
-      var content = HTTP_CLIENT_BUILDER.build().execute(httpPost).getEntity().getContent();
-
-      var token = new ObjectMapper().readTree(content).get("access_token").textValue();
+      try (var httpResponse = getHTTPClient(target).execute(httpPost)) {
+        var token = new ObjectMapper().readTree(httpResponse.getEntity().getContent()).get("access_token").textValue();
 
-      clientInterceptor = new BearerTokenAuthInterceptor(token);
+        clientInterceptor = new BearerTokenAuthInterceptor(token);
+      }
     }
 
     return clientInterceptor;